@@ -0,0 +1,124 @@
+package ru.hirus.jcabi.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramIterationValue;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Result of {@link LoadTest#run()}
+ * <br>
+ * Latencies are recorded in microseconds
+ *
+ * @param rate       arrival rate of operations per second
+ * @param elapsed    time from the end of the warm-up to the completion
+ *                   of the last measured operation
+ * @param workers    threads that executed operations
+ * @param operations statistics of every operation of the workload
+ */
+public record LoadReport(double rate, Duration elapsed, LoadTest.Workers workers, List<Operation> operations) {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    /**
+     * @return statistics of all operations together
+     */
+    public Operation total() {
+        Histogram response = new Histogram(3);
+        Histogram service = new Histogram(3);
+        long errors = 0;
+        for (Operation operation : operations) {
+            response.add(operation.response());
+            service.add(operation.service());
+            errors += operation.errors().get();
+        }
+        return new Operation("total", response, service, new AtomicLong(errors));
+    }
+
+    /**
+     * @return completed operations per second
+     */
+    public double throughput(Operation operation) {
+        return operation.response().getTotalCount() / (elapsed.toNanos() / 1e9);
+    }
+
+    /**
+     * Writes full percentile distributions of response and service time
+     * of every operation and of all of them together
+     */
+    public void writeCsv(Path path) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writeCsv(writer);
+        }
+    }
+
+    public void writeCsv(Writer writer) {
+        PrintWriter out = new PrintWriter(writer);
+        out.println("operation,metric,percentile,latency_us,count");
+
+        List<Operation> all = new ArrayList<>(operations);
+        all.add(total());
+        for (Operation operation : all) {
+            writeCsv(out, operation.name(), "response", operation.response());
+            writeCsv(out, operation.name(), "service", operation.service());
+        }
+        out.flush();
+    }
+
+    private static void writeCsv(PrintWriter out, String name, String metric, Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            return;
+        }
+
+        for (HistogramIterationValue value : histogram.percentiles(5)) {
+            out.printf(Locale.ROOT, "%s,%s,%.6f,%d,%d%n", name, metric, value.getPercentileLevelIteratedTo(),
+                    value.getValueIteratedTo(), value.getTotalCountToThisValue());
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(String.format(Locale.ROOT,
+                "Arrival rate %.1f/s, %s, measured %.1f s%n", rate, workers, elapsed.toNanos() / 1e9));
+
+        builder.append(String.format(Locale.ROOT, "%-16s %10s %8s %10s", "operation", "count", "errors", "ops/s"));
+        for (double percentile : PERCENTILES) {
+            builder.append(String.format(Locale.ROOT, " %10s", "p" + percentile));
+        }
+        builder.append(String.format(Locale.ROOT, " %10s%n", "max"));
+
+        List<Operation> all = new ArrayList<>(operations);
+        all.add(total());
+        for (Operation operation : all) {
+            Histogram response = operation.response();
+            builder.append(String.format(Locale.ROOT, "%-16s %10d %8d %10.1f", operation.name(),
+                    response.getTotalCount(), operation.errors().get(), throughput(operation)));
+            for (double percentile : PERCENTILES) {
+                builder.append(String.format(Locale.ROOT, " %10d", response.getValueAtPercentile(percentile)));
+            }
+            builder.append(String.format(Locale.ROOT, " %10d%n", response.getMaxValue()));
+        }
+        return builder.append("Latencies are response times in microseconds").toString();
+    }
+
+    /**
+     * Statistics of one operation
+     *
+     * @param name     name of the operation
+     * @param response time from the scheduled start to the completion
+     * @param service  time from the actual start to the completion
+     * @param errors   count of failed executions
+     */
+    public record Operation(String name, Histogram response, Histogram service, AtomicLong errors) {
+    }
+}
@@ -0,0 +1,181 @@
+package ru.hirus.jcabi.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load test of a {@link Workload}
+ * <br>
+ * Operations are started at the fixed arrival rate regardless of how
+ * fast previous ones complete. Response time is measured from the
+ * moment the operation was scheduled to start, not from the moment
+ * a worker picked it up, so the time spent waiting for a busy worker
+ * is not lost (coordinated omission correction). Service time, which
+ * starts when the worker picks the operation up, is reported separately
+ * <br>
+ * Operations started during the warm-up are executed, but not measured
+ */
+public final class LoadTest {
+
+    private final DataSource dataSource;
+    private final Workload workload;
+    private final double rate;
+    private final Duration duration;
+    private final Duration warmUp;
+    private final Workers workers;
+
+    /**
+     * @param rate     arrival rate of operations per second
+     * @param duration duration of the measured part of the test
+     * @param warmUp   duration of the unmeasured part of the test
+     */
+    public LoadTest(DataSource dataSource, Workload workload, double rate, Duration duration, Duration warmUp,
+                    Workers workers) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("rate must be positive");
+        }
+        if (duration.isNegative() || duration.isZero() || warmUp.isNegative()) {
+            throw new IllegalArgumentException("duration must be positive");
+        }
+
+        this.dataSource = dataSource;
+        this.workload = workload;
+        this.rate = rate;
+        this.duration = duration;
+        this.warmUp = warmUp;
+        this.workers = workers;
+    }
+
+    /**
+     * Runs the test and waits until all started operations complete
+     */
+    public LoadReport run() throws InterruptedException {
+        Map<String, LoadReport.Operation> operations = new LinkedHashMap<>();
+        for (Workload.Operation operation : workload.operations()) {
+            operations.put(operation.name(), new LoadReport.Operation(operation.name(),
+                    new ConcurrentHistogram(3), new ConcurrentHistogram(3), new AtomicLong()));
+        }
+
+        SplittableRandom random = new SplittableRandom();
+        LongAccumulator lastDone = new LongAccumulator(Math::max, Long.MIN_VALUE);
+        ExecutorService executor = workers.executor();
+        Semaphore concurrency = new Semaphore(workers.count());
+
+        long interval = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / rate));
+        long start = System.nanoTime();
+        long measured = start + warmUp.toNanos();
+        long end = measured + duration.toNanos();
+
+        try {
+            for (long i = 0; ; i++) {
+                long intended = start + i * interval;
+                if (intended >= end) {
+                    break;
+                }
+
+                long wait = intended - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+
+                Workload.Operation operation = workload.next(random);
+                LoadReport.Operation stats = intended >= measured ? operations.get(operation.name()) : null;
+                executor.execute(() -> execute(operation, stats, intended, concurrency, lastDone));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+
+        Duration elapsed = Duration.ofNanos(Math.max(lastDone.get(), end) - measured);
+        return new LoadReport(rate, elapsed, workers, operations.values().stream().toList());
+    }
+
+    private void execute(Workload.Operation operation, LoadReport.Operation stats, long intended,
+                         Semaphore concurrency, LongAccumulator lastDone) {
+        concurrency.acquireUninterruptibly();
+        long begin = System.nanoTime();
+        boolean failed = false;
+        try {
+            operation.query().apply(ThreadLocalRandom.current()).execute(dataSource);
+        } catch (SQLException | RuntimeException e) {
+            failed = true;
+        } finally {
+            concurrency.release();
+        }
+
+        long done = System.nanoTime();
+        if (stats == null) {
+            return;
+        }
+
+        lastDone.accumulate(done);
+        if (failed) {
+            stats.errors().incrementAndGet();
+        }
+        stats.response().recordValue(TimeUnit.NANOSECONDS.toMicros(done - intended));
+        stats.service().recordValue(TimeUnit.NANOSECONDS.toMicros(done - begin));
+    }
+
+    /**
+     * Threads that execute operations
+     *
+     * @param virtual true if every operation is executed in its own
+     *                virtual thread, false if operations are executed
+     *                by the fixed pool of platform threads
+     * @param count   count of platform threads or max count of virtual
+     *                threads executing operations simultaneously
+     */
+    public record Workers(boolean virtual, int count) {
+
+        public Workers {
+            if (count < 1) {
+                throw new IllegalArgumentException("count must be positive");
+            }
+        }
+
+        public static Workers platform(int count) {
+            return new Workers(false, count);
+        }
+
+        public static Workers virtual(int count) {
+            return new Workers(true, count);
+        }
+
+        private ExecutorService executor() {
+            if (!virtual) {
+                return Executors.newFixedThreadPool(count);
+            }
+
+            // Виртуальные потоки появились в Java 21, а модуль
+            // собирается для Java 17
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (NoSuchMethodException e) {
+                throw new UnsupportedOperationException("Virtual threads require Java 21", e);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return count + (virtual ? " virtual" : " platform") + " threads";
+        }
+    }
+}
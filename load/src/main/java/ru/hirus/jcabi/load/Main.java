@@ -0,0 +1,156 @@
+package ru.hirus.jcabi.load;
+
+import com.jcabi.jdbc.SingleOutcome;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import ru.hirus.jcabi.Nothing;
+import ru.hirus.jcabi.lazy.Query;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.random.RandomGenerator;
+
+/**
+ * Runs the load test against H2 or a local Postgres
+ * <br>
+ * Options are passed as {@code --name=value}:
+ * <ul>
+ *     <li>{@code target} - {@code h2} (default) or {@code postgres}</li>
+ *     <li>{@code url}, {@code user}, {@code password} - connection of the target</li>
+ *     <li>{@code rate} - arrival rate of operations per second, 1000 by default</li>
+ *     <li>{@code duration}, {@code warmup} - durations in seconds, 60 and 10 by default</li>
+ *     <li>{@code threads} - count of workers and pooled connections, 16 by default</li>
+ *     <li>{@code virtual} - {@code true} to use virtual threads</li>
+ *     <li>{@code mix} - weights of operations, {@code select:9,insertSelect:1} by default</li>
+ *     <li>{@code rows} - count of rows inserted before the test, 10000 by default</li>
+ *     <li>{@code csv} - path of the CSV file with latency distributions</li>
+ * </ul>
+ */
+public final class Main {
+
+    private static final Map<String, Function<Long, Function<RandomGenerator, Query<?>>>> OPERATIONS = Map.of(
+            "select", rows -> random -> select(1 + random.nextLong(rows)),
+            "insert", rows -> random -> insert("Name" + random.nextInt()),
+            "insertSelect", rows -> random -> insertSelect("Name" + random.nextInt())
+    );
+
+    private Main() {
+
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = options(args);
+
+        String target = options.getOrDefault("target", "h2");
+        String url = options.getOrDefault("url", switch (target) {
+            case "h2" -> "jdbc:h2:mem:load;DB_CLOSE_DELAY=-1";
+            case "postgres" -> "jdbc:postgresql://localhost:5432/postgres";
+            default -> throw new IllegalArgumentException("Unknown target " + target);
+        });
+
+        boolean virtual = Boolean.parseBoolean(options.getOrDefault("virtual", "false"));
+        int threads = Integer.parseInt(options.getOrDefault("threads", "16"));
+        long rows = Long.parseLong(options.getOrDefault("rows", "10000"));
+
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(url);
+        config.setUsername(options.getOrDefault("user", target.equals("postgres") ? "postgres" : "sa"));
+        config.setPassword(options.getOrDefault("password", target.equals("postgres") ? "postgres" : ""));
+        config.setMaximumPoolSize(threads);
+
+        try (HikariDataSource dataSource = new HikariDataSource(config)) {
+            createTable().execute(dataSource);
+            fill(rows).execute(dataSource);
+
+            LoadTest test = new LoadTest(
+                    dataSource,
+                    workload(options.getOrDefault("mix", "select:9,insertSelect:1"), rows),
+                    Double.parseDouble(options.getOrDefault("rate", "1000")),
+                    Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "60"))),
+                    Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "10"))),
+                    new LoadTest.Workers(virtual, threads)
+            );
+
+            LoadReport report = test.run();
+            System.out.println(report);
+
+            if (options.containsKey("csv")) {
+                report.writeCsv(Path.of(options.get("csv")));
+            }
+        }
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Option " + arg + " must look like --name=value");
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return options;
+    }
+
+    private static Workload workload(String mix, long rows) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.split(":");
+            weights.put(parts[0].trim(), Integer.parseInt(parts[1].trim()));
+        }
+
+        Workload workload = new Workload();
+        for (Map.Entry<String, Integer> entry : weights.entrySet()) {
+            Function<Long, Function<RandomGenerator, Query<?>>> operation = OPERATIONS.get(entry.getKey());
+            if (operation == null) {
+                throw new IllegalArgumentException("Unknown operation " + entry.getKey()
+                        + ", known are " + OPERATIONS.keySet());
+            }
+            workload = workload.with(entry.getKey(), entry.getValue(), operation.apply(rows));
+        }
+        return workload;
+    }
+
+    private static Query<Nothing> createTable() {
+        // Синтаксис IDENTITY понимают и H2, и Postgres
+        return Query.execute()
+                .sql("""
+                        CREATE TABLE IF NOT EXISTS test (
+                            id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                            name VARCHAR(128)
+                        )
+                        """)
+                .build();
+    }
+
+    private static Query<List<Long>> fill(long rows) {
+        List<Query<Long>> inserts = new ArrayList<>();
+        for (long i = 1; i <= rows; i++) {
+            inserts.add(insert("Name" + i));
+        }
+        return new Query.Sequence<>(inserts);
+    }
+
+    private static Query<Long> insert(String name) {
+        return Query.insert()
+                .sql("INSERT INTO test (name) VALUES (?)")
+                .set(name)
+                .build(new SingleOutcome<>(Long.class));
+    }
+
+    private static Query<String> select(long id) {
+        return Query.select()
+                .sql("SELECT name FROM test WHERE id = ?")
+                .set(id)
+                .build(new SingleOutcome<>(String.class, true));
+    }
+
+    private static Query<String> insertSelect(String name) {
+        return insert(name).thenCompose(Main::select);
+    }
+}
@@ -0,0 +1,83 @@
+package ru.hirus.jcabi.load;
+
+import ru.hirus.jcabi.lazy.Query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.random.RandomGenerator;
+
+/**
+ * Weighted mix of operations executed by {@link LoadTest}
+ * <br>
+ * Every operation creates a new {@link Query} for each execution,
+ * so it may use random arguments
+ * <br>
+ * <b>This class is immutable</b>
+ */
+public final class Workload {
+
+    private final List<Operation> operations;
+    private final int totalWeight;
+
+    public Workload() {
+        this(List.of());
+    }
+
+    private Workload(List<Operation> operations) {
+        this.operations = operations;
+        this.totalWeight = operations.stream().mapToInt(Operation::weight).sum();
+    }
+
+    /**
+     * @param name   name of the operation in the report
+     * @param weight relative frequency of the operation
+     * @param query  factory of queries of the operation
+     * @return new workload with the operation
+     */
+    public Workload with(String name, int weight, Function<RandomGenerator, Query<?>> query) {
+        if (weight < 1) {
+            throw new IllegalArgumentException("weight must be positive");
+        }
+        if (operations.stream().anyMatch(operation -> operation.name().equals(name))) {
+            throw new IllegalArgumentException("Operation " + name + " is already defined");
+        }
+
+        List<Operation> operations = new ArrayList<>(this.operations);
+        operations.add(new Operation(name, weight, query));
+        return new Workload(Collections.unmodifiableList(operations));
+    }
+
+    public List<Operation> operations() {
+        return operations;
+    }
+
+    /**
+     * Picks operation with probability proportional to its weight
+     */
+    Operation next(RandomGenerator random) {
+        if (operations.isEmpty()) {
+            throw new IllegalStateException("Workload is empty");
+        }
+
+        int point = random.nextInt(totalWeight);
+        for (Operation operation : operations) {
+            point -= operation.weight();
+            if (point < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException("Unreachable");
+    }
+
+    /**
+     * Operation of the workload
+     *
+     * @param name   name of the operation in the report
+     * @param weight relative frequency of the operation
+     * @param query  factory of queries of the operation
+     */
+    public record Operation(String name, int weight, Function<RandomGenerator, Query<?>> query) {
+    }
+}
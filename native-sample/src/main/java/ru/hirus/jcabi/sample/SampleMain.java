@@ -0,0 +1,144 @@
+package ru.hirus.jcabi.sample;
+
+import com.jcabi.jdbc.SingleOutcome;
+import org.h2.jdbcx.JdbcDataSource;
+import ru.hirus.jcabi.Nothing;
+import ru.hirus.jcabi.lazy.Query;
+import ru.hirus.jcabi.lazy.Transaction;
+import ru.hirus.jcabi.outcome.JsonOutcome;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Runs examples from the README against in-memory H2 and prints
+ * the time since the start of the process and its resident memory,
+ * so the native image and the JVM are compared by the same program:
+ * <pre>
+ * ./gradlew :native-sample:run
+ * ./gradlew :native-sample:nativeRun
+ * </pre>
+ */
+public final class SampleMain {
+
+    private SampleMain() {
+
+    }
+
+    public static void main(String[] args) throws SQLException {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:sample;DB_CLOSE_DELAY=-1");
+
+        Result result = run(dataSource);
+        System.out.println(result);
+
+        Duration startup = ProcessHandle.current().info().startInstant()
+                .map(start -> Duration.between(start, Instant.now()))
+                .orElse(Duration.ZERO);
+        System.out.printf("Completed in %d ms since the start of the process, RSS %s%n",
+                startup.toMillis(), rss());
+    }
+
+    /**
+     * Runs Query, Transaction and Sequence examples
+     */
+    static Result run(DataSource dataSource) throws SQLException {
+        createTable().execute(dataSource);
+
+        // Query
+        long id = insert("Name").execute(dataSource);
+        Record record = select(id).execute(dataSource);
+
+        // Transaction
+        Transaction<Record> transaction = createTable()
+                .then(insert("Other"))
+                .thenCompose(SampleMain::select)
+                .thenCompose(other -> cachedName(other.id())
+                        .thenCompose(name -> cachedName(other.id()))
+                        .map(name -> new Record(other.id(), name)));
+        Record other = transaction.execute(dataSource);
+
+        // Sequence
+        List<Record> records = new Query.Sequence<>(List.of(select(id), select(other.id()))).execute(dataSource);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Query.select()
+                .sql("SELECT id, name FROM test ORDER BY id")
+                .build(new JsonOutcome(output))
+                .execute(dataSource);
+
+        return new Result(record, other, records, output.toString(StandardCharsets.UTF_8));
+    }
+
+    private static Query<Nothing> createTable() {
+        return Query.execute()
+                .sql("""
+                        CREATE TABLE IF NOT EXISTS test (
+                            id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                            name VARCHAR(128)
+                        )
+                        """)
+                .build();
+    }
+
+    private static Query<Long> insert(String name) {
+        // Идентификатор читается из сгенерированных ключей
+        return Query.insert()
+                .sql("INSERT INTO test (name) VALUES (?)")
+                .set(name)
+                .build(new SingleOutcome<>(Long.class));
+    }
+
+    private static Query<Record> select(long id) {
+        return Query.select()
+                .sql("SELECT name FROM test WHERE id = ?")
+                .setLong(id)
+                .build(new SingleOutcome<>(String.class))
+                .map(name -> new Record(id, name));
+    }
+
+    private static Query<String> cachedName(long id) {
+        return Query.select()
+                .sql("SELECT name FROM test WHERE id = ?")
+                .setLong(id)
+                .build(new SingleOutcome<>(String.class))
+                .cached();
+    }
+
+    /**
+     * @return resident memory of the process or "unknown" outside Linux
+     */
+    private static String rss() {
+        try {
+            return Files.readAllLines(Path.of("/proc/self/status")).stream()
+                    .filter(line -> line.startsWith("VmRSS:"))
+                    .map(line -> line.substring("VmRSS:".length()).strip())
+                    .findFirst()
+                    .orElse("unknown");
+        } catch (IOException e) {
+            return "unknown";
+        }
+    }
+
+    public record Record(long id, String name) {
+    }
+
+    /**
+     * Results of examples
+     *
+     * @param record   record selected by the query
+     * @param other    record selected by the transaction
+     * @param sequence records selected by the sequence
+     * @param json     all records written by {@link JsonOutcome}
+     */
+    record Result(Record record, Record other, List<Record> sequence, String json) {
+    }
+}
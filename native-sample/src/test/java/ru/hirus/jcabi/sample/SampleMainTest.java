@@ -0,0 +1,29 @@
+package ru.hirus.jcabi.sample;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Runs examples on the JVM by {@code ./gradlew :native-sample:test}
+ * and in the native image by {@code ./gradlew :native-sample:nativeTest}
+ */
+public class SampleMainTest {
+
+    @Test
+    void examplesTest() throws SQLException {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:sample-test;DB_CLOSE_DELAY=-1");
+
+        SampleMain.Result result = SampleMain.run(dataSource);
+
+        assertEquals(new SampleMain.Record(1, "Name"), result.record());
+        assertEquals(new SampleMain.Record(2, "Other"), result.other());
+        assertEquals(List.of(result.record(), result.other()), result.sequence());
+        assertEquals("[{\"ID\":1,\"NAME\":\"Name\"},{\"ID\":2,\"NAME\":\"Other\"}]", result.json());
+    }
+}
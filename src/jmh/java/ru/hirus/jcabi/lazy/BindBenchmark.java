@@ -0,0 +1,113 @@
+package ru.hirus.jcabi.lazy;
+
+import com.jcabi.jdbc.JdbcSession;
+import com.jcabi.jdbc.Outcome;
+import com.jcabi.jdbc.StaticSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of binding four parameters to a prepared H2 statement
+ * <ul>
+ *     <li>{@code jcabi} - values bound by {@link JdbcSession#set(Object)}, which is how
+ *     {@link JdbcQuery} bound all arguments before typed setters, including the execution</li>
+ *     <li>{@code typed} - values bound by typed setters of {@link JdbcQuery.Builder},
+ *     including the same execution</li>
+ *     <li>{@code setObject} and {@code bind} - only the binding to the statement by
+ *     {@link PreparedStatement#setObject(int, Object)} and by frozen {@link Arguments}</li>
+ * </ul>
+ * Arguments are built before the measurement, so allocation and
+ * {@link Arguments#freeze()} are not included
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BindBenchmark {
+
+    private static final String SQL = "SELECT * FROM bench WHERE id = ? AND count = ? AND name = ? AND created = ?";
+
+    private Connection connection;
+    private PreparedStatement statement;
+    private DataSource source;
+
+    private Object[] values;
+    private Arguments arguments;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:bench");
+        try (Statement create = connection.createStatement()) {
+            create.execute("CREATE TABLE bench (id BIGINT, count INT, name VARCHAR(128), created TIMESTAMP)");
+        }
+        statement = connection.prepareStatement(SQL);
+        source = new StaticSource(connection);
+
+        Timestamp created = new Timestamp(System.currentTimeMillis());
+        values = new Object[]{1L, 2, "Name", created};
+
+        Arguments arguments = new Arguments();
+        arguments.addLong(1L);
+        arguments.addInt(2);
+        arguments.addString("Name");
+        arguments.addTimestamp(created);
+        this.arguments = arguments.freeze();
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        statement.close();
+        connection.close();
+    }
+
+    @Benchmark
+    public Object jcabi() throws SQLException {
+        JdbcSession jdbcSession = new JdbcSession(source).sql(SQL);
+        for (Object value : values) {
+            jdbcSession.set(value);
+        }
+        return jdbcSession.select(Outcome.NOT_EMPTY);
+    }
+
+    @Benchmark
+    public Object typed() throws SQLException {
+        JdbcSession jdbcSession = new JdbcSession(source).sql(SQL);
+        arguments.prepare(jdbcSession);
+        return jdbcSession.select(Outcome.NOT_EMPTY);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(4)
+    public void setObject() throws SQLException {
+        for (int i = 0; i < values.length; i++) {
+            statement.setObject(i + 1, values[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(4)
+    public void bind() throws SQLException {
+        arguments.bind(statement);
+    }
+}
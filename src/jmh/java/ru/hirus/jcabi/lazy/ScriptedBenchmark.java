@@ -0,0 +1,89 @@
+package ru.hirus.jcabi.lazy;
+
+import com.jcabi.jdbc.JdbcSession;
+import com.jcabi.jdbc.SingleOutcome;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.hirus.jcabi.misc.ScriptedDataSource;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Overhead of the library itself, measured on {@link ScriptedDataSource},
+ * which answers without a database and network
+ * <ul>
+ *     <li>{@code jcabi} - the same select executed by {@link JdbcSession} directly</li>
+ *     <li>{@code query} - one {@link Query}</li>
+ *     <li>{@code transaction} - insert and select composed into a {@link Transaction}</li>
+ *     <li>{@code sequence} - {@value #SEQUENCE} selects in one {@link Query.Sequence}</li>
+ * </ul>
+ * Queries are built inside the measurement, as they are built by repositories
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScriptedBenchmark {
+
+    private static final int SEQUENCE = 10;
+
+    private ScriptedDataSource dataSource;
+
+    @Setup
+    public void setUp() {
+        dataSource = new ScriptedDataSource().recording(false);
+        dataSource.on("INSERT INTO test").generatedKeys(1L);
+        dataSource.on("SELECT name FROM test").columns("name").row("Name");
+    }
+
+    private static Query<Long> insert(String name) {
+        return Query.insert()
+                .sql("INSERT INTO test (name) VALUES (?) RETURNING id")
+                .setString(name)
+                .build(new SingleOutcome<>(Long.class));
+    }
+
+    private static Query<String> select(long id) {
+        return Query.select()
+                .sql("SELECT name FROM test WHERE id = ?")
+                .setLong(id)
+                .build(new SingleOutcome<>(String.class));
+    }
+
+    @Benchmark
+    public String jcabi() throws SQLException {
+        return new JdbcSession(dataSource)
+                .sql("SELECT name FROM test WHERE id = ?")
+                .set(1L)
+                .select(new SingleOutcome<>(String.class));
+    }
+
+    @Benchmark
+    public String query() throws SQLException {
+        return select(1).execute(dataSource);
+    }
+
+    @Benchmark
+    public String transaction() throws SQLException {
+        return insert("Name").thenCompose(ScriptedBenchmark::select).execute(dataSource);
+    }
+
+    @Benchmark
+    public List<String> sequence() throws SQLException {
+        return new Query.Sequence<>(LongStream.rangeClosed(1, SEQUENCE).mapToObj(ScriptedBenchmark::select).toList())
+                .execute(dataSource);
+    }
+}
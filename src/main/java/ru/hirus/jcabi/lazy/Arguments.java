@@ -0,0 +1,320 @@
+package ru.hirus.jcabi.lazy;
+
+import com.jcabi.jdbc.JdbcSession;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Arguments of {@link JdbcQuery} in the order of placeholders
+ * <br>
+ * Values bound by typed setters are kept unboxed and bound by
+ * the corresponding typed methods of {@link PreparedStatement}, so
+ * the driver does not have to infer their types. Other values are
+ * passed to {@link JdbcSession#set(Object)} and bound by jcabi itself
+ * <br>
+ * The array of argument types is the binding plan of the query, it is
+ * shared only by the queries derived from the same built query
+ * <br>
+ * <b>This class is not thread safe until {@link Arguments#freeze()}
+ * is called, and is immutable after that</b>
+ */
+final class Arguments {
+
+    static final byte OBJECT = 0;
+    static final byte LONG = 1;
+    static final byte INT = 2;
+    static final byte STRING = 3;
+    static final byte TIMESTAMP = 4;
+    static final byte ARRAY = 5;
+
+    private byte[] types;
+    private long[] primitives;
+    private Object[] references;
+    private int size;
+    private boolean typed;
+
+    Arguments() {
+        this.types = new byte[4];
+        this.primitives = new long[4];
+        this.references = new Object[4];
+    }
+
+    private Arguments(byte[] types, long[] primitives, Object[] references, int size, boolean typed) {
+        this.types = types;
+        this.primitives = primitives;
+        this.references = references;
+        this.size = size;
+        this.typed = typed;
+    }
+
+    void add(Object value) {
+        int index = append(OBJECT);
+        references[index] = value;
+    }
+
+    void addLong(long value) {
+        int index = append(LONG);
+        primitives[index] = value;
+        typed = true;
+    }
+
+    void addInt(int value) {
+        int index = append(INT);
+        primitives[index] = value;
+        typed = true;
+    }
+
+    void addString(String value) {
+        int index = append(STRING);
+        references[index] = value;
+        typed = true;
+    }
+
+    void addTimestamp(Timestamp value) {
+        int index = append(TIMESTAMP);
+        references[index] = value;
+        typed = true;
+    }
+
+    void addArray(String sqlType, Collection<?> elements) {
+        int index = append(ARRAY);
+        references[index] = new SqlArray(sqlType, Collections.unmodifiableList(new ArrayList<>(elements)));
+        typed = true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return boxed values of arguments
+     */
+    List<Object> values() {
+        List<Object> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(switch (types[i]) {
+                case LONG -> primitives[i];
+                case INT -> (int) primitives[i];
+                default -> references[i];
+            });
+        }
+        return Collections.unmodifiableList(values);
+    }
+
+    /**
+     * @return values of arguments that are equal if their contents are
+     * equal, e.g. arrays are replaced by lists of their elements
+     */
+    List<Object> key() {
+        List<Object> values = values();
+        List<Object> key = new ArrayList<>(values.size());
+        for (Object value : values) {
+            key.add(comparable(value));
+        }
+        return key;
+    }
+
+    private static Object comparable(Object value) {
+        if (value == null || !value.getClass().isArray()) {
+            return value;
+        }
+
+        int length = java.lang.reflect.Array.getLength(value);
+        List<Object> elements = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            elements.add(comparable(java.lang.reflect.Array.get(value, i)));
+        }
+        return elements;
+    }
+
+    /**
+     * Creates immutable copy of arguments
+     */
+    Arguments freeze() {
+        return new Arguments(Arrays.copyOf(types, size), Arrays.copyOf(primitives, size),
+                Arrays.copyOf(references, size), size, typed);
+    }
+
+    /**
+     * @return count of placeholders in SQL
+     */
+    static int placeholders(String sql) {
+        return count(sql);
+    }
+
+    /**
+     * Passes arguments to the session. Untyped values are bound by jcabi
+     * exactly as {@link JdbcSession#set(Object)} binds them, and values of
+     * typed setters are bound by {@link Arguments#bind(PreparedStatement)}
+     */
+    void prepare(JdbcSession session) {
+        if (!typed) {
+            for (int i = 0; i < size; i++) {
+                session.set(references[i]);
+            }
+            return;
+        }
+
+        // Аргументы jcabi связываются по позиции в списке, поэтому на месте
+        // типизированных передается null, который затем перезаписывается.
+        // Подготовка аргументов jcabi выполняется раньше добавленных
+        if (untyped()) {
+            for (int i = 0; i < size; i++) {
+                session.set(types[i] == OBJECT ? references[i] : null);
+            }
+        }
+        session.prepare(this::bind);
+    }
+
+    /**
+     * Binds values of typed setters to the statement, untyped
+     * values are left to jcabi
+     */
+    void bind(PreparedStatement statement) throws SQLException {
+        for (int i = 0; i < size; i++) {
+            int index = i + 1;
+            switch (types[i]) {
+                case LONG -> statement.setLong(index, primitives[i]);
+                case INT -> statement.setInt(index, (int) primitives[i]);
+                case STRING -> statement.setString(index, (String) references[i]);
+                case TIMESTAMP -> statement.setTimestamp(index, (Timestamp) references[i]);
+                case ARRAY -> {
+                    SqlArray array = (SqlArray) references[i];
+                    statement.setArray(index, statement.getConnection()
+                            .createArrayOf(array.sqlType(), array.elements().toArray()));
+                }
+                default -> {
+                    // Значения без типа уже связаны jcabi
+                }
+            }
+        }
+    }
+
+    private boolean untyped() {
+        for (int i = 0; i < size; i++) {
+            if (types[i] == OBJECT) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int append(byte type) {
+        if (size == types.length) {
+            int capacity = size * 2;
+            types = Arrays.copyOf(types, capacity);
+            primitives = Arrays.copyOf(primitives, capacity);
+            references = Arrays.copyOf(references, capacity);
+        }
+
+        types[size] = type;
+        return size++;
+    }
+
+    /**
+     * Counts JDBC placeholders skipping string literals, escape strings
+     * ({@code E'...'}), quoted identifiers, comments, dollar-quoted
+     * strings and escaped question marks ({@code ??})
+     */
+    private static int count(String sql) {
+        int count = 0;
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '\'' && i > 0 && (sql.charAt(i - 1) == 'E' || sql.charAt(i - 1) == 'e')
+                    && (i == 1 || !Character.isJavaIdentifierPart(sql.charAt(i - 2)))) {
+                i = skipEscaped(sql, i);
+            } else if (c == '\'' || c == '"') {
+                i = skipQuoted(sql, i, c);
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (c == '$' && (i == 0 || !Character.isJavaIdentifierPart(sql.charAt(i - 1)))) {
+                i = skipDollarQuoted(sql, i);
+            } else if (c == '?') {
+                if (i + 1 < length && sql.charAt(i + 1) == '?') {
+                    i += 2;
+                } else {
+                    count++;
+                    i++;
+                }
+            } else {
+                i++;
+            }
+        }
+        return count;
+    }
+
+    private static int skipQuoted(String sql, int start, char quote) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            if (sql.charAt(i) == quote) {
+                // Удвоенная кавычка экранирует саму себя
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return sql.length();
+    }
+
+    private static int skipEscaped(String sql, int start) {
+        int i = start + 1;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (c == '\\') {
+                // Обратная косая черта экранирует следующий символ, в том числе кавычку
+                i += 2;
+            } else if (c == '\'') {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == '\'') {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+        return sql.length();
+    }
+
+    private static int skipDollarQuoted(String sql, int start) {
+        int tagEnd = start + 1;
+        while (tagEnd < sql.length() && Character.isJavaIdentifierPart(sql.charAt(tagEnd))
+                && sql.charAt(tagEnd) != '$') {
+            tagEnd++;
+        }
+        if (tagEnd >= sql.length() || sql.charAt(tagEnd) != '$') {
+            // Это не начало строки, например, позиционный параметр $1
+            return start + 1;
+        }
+
+        String tag = sql.substring(start, tagEnd + 1);
+        int end = sql.indexOf(tag, tagEnd + 1);
+        return end < 0 ? sql.length() : end + tag.length();
+    }
+
+    /**
+     * Value of the argument bound as SQL array, which is created
+     * by the connection of the statement
+     *
+     * @param sqlType  SQL name of the element type, e.g. {@code bigint}
+     * @param elements elements of the array
+     */
+    record SqlArray(String sqlType, List<Object> elements) {
+    }
+}
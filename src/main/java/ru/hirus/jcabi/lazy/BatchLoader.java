@@ -0,0 +1,67 @@
+package ru.hirus.jcabi.lazy;
+
+import com.jcabi.jdbc.ListOutcome;
+import org.intellij.lang.annotations.Language;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads values of several keys using one query instead of
+ * one query per key
+ * <br>
+ * Loaders are used by {@link Query#load(BatchLoader, Object)}: loads
+ * of the same loader that are placed in one {@link Query.Sequence}
+ * are resolved together, and every loaded key is remembered until
+ * the end of the transaction
+ * <br>
+ * Loaders are compared by identity, so the same instance should
+ * be reused by the repository
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+@FunctionalInterface
+public interface BatchLoader<K, V> {
+
+    /**
+     * Initializes query that loads values of provided keys.
+     * Keys that are missing in the resulting map are considered
+     * to have no value
+     *
+     * @param keys non-empty set of keys
+     */
+    Query<Map<K, V>> loadAll(Set<K> keys);
+
+    /**
+     * Creates loader for queries like
+     * {@code SELECT id, name FROM test WHERE id = ANY(?)}
+     * <br>
+     * The only parameter of the query is bound as SQL array of keys
+     * using {@link PreparedStatement#setArray(int, Array)}
+     *
+     * @param sql     SQL query with the only parameter
+     * @param sqlType SQL name of the key type, e.g. {@code bigint}
+     * @param key     reads key from the current row
+     * @param value   reads value from the current row
+     * @param <K>     key type
+     * @param <V>     value type
+     */
+    static <K, V> BatchLoader<K, V> any(@Language("PostgreSQL") String sql, String sqlType,
+                                        ListOutcome.Mapping<K> key, ListOutcome.Mapping<V> value) {
+        return keys -> Query.select()
+                .sql(sql)
+                .prepare(statement -> statement.setArray(1,
+                        statement.getConnection().createArrayOf(sqlType, keys.toArray())))
+                .build((resultSet, statement) -> {
+                    Map<K, V> values = new HashMap<>();
+                    while (resultSet.next()) {
+                        values.put(key.map(resultSet), value.map(resultSet));
+                    }
+                    return values;
+                });
+    }
+}
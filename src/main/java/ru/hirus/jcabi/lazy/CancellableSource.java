@@ -0,0 +1,133 @@
+package ru.hirus.jcabi.lazy;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * {@link DataSource} that remembers statements created on its
+ * connections, so they can be cancelled from another thread
+ */
+final class CancellableSource implements DataSource {
+
+    private final DataSource dataSource;
+    private final List<Statement> statements;
+    private boolean cancelled;
+
+    CancellableSource(DataSource dataSource) {
+        this.dataSource = dataSource;
+        this.statements = new ArrayList<>();
+    }
+
+    /**
+     * Cancels statements that are executed right now and fails
+     * creation of connections and statements later
+     */
+    void cancel() {
+        List<Statement> statements;
+        synchronized (this) {
+            cancelled = true;
+            statements = new ArrayList<>(this.statements);
+        }
+
+        for (Statement statement : statements) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                // Запрос мог уже завершиться, а отмена нужна только
+                // для того, чтобы освободить базу раньше
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        check();
+        return tracked(dataSource.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        check();
+        return tracked(dataSource.getConnection(username, password));
+    }
+
+    private synchronized void check() throws SQLException {
+        if (cancelled) {
+            throw new SQLException("Execution is cancelled", "57014");
+        }
+    }
+
+    private Connection tracked(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result;
+                    try {
+                        result = method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+
+                    if (result instanceof Statement statement) {
+                        register(statement);
+                    }
+                    return result;
+                });
+    }
+
+    private void register(Statement statement) throws SQLException {
+        boolean cancelled;
+        synchronized (this) {
+            statements.add(statement);
+            cancelled = this.cancelled;
+        }
+
+        if (cancelled) {
+            statement.close();
+            throw new SQLException("Execution is cancelled", "57014");
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return dataSource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        dataSource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        dataSource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return dataSource.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return dataSource.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(dataSource) ? iface.cast(dataSource) : dataSource.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(dataSource) || dataSource.isWrapperFor(iface);
+    }
+}
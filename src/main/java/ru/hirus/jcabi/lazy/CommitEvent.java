@@ -0,0 +1,30 @@
+package ru.hirus.jcabi.lazy;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import javax.sql.DataSource;
+
+/**
+ * Flight Recorder event of the commit made by {@link Query#execute(DataSource)}
+ * <br>
+ * Event is disabled by default and is enabled by the
+ * {@code jdbc.jfc} settings profile
+ */
+@Name("ru.hirus.jcabi.Commit")
+@Label("JDBC Commit")
+@Category("JDBC Wrapper")
+@Description("Commit of the transaction executed by Query#execute")
+@Enabled(false)
+@StackTrace(true)
+final class CommitEvent extends Event {
+
+    @Label("Success")
+    @Description("Whether the transaction was committed")
+    boolean success;
+}
@@ -0,0 +1,31 @@
+package ru.hirus.jcabi.lazy;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import javax.sql.DataSource;
+
+/**
+ * Flight Recorder event of the connection acquisition
+ * made by {@link Query#execute(DataSource)}
+ * <br>
+ * Event is disabled by default and is enabled by the
+ * {@code jdbc.jfc} settings profile
+ */
+@Name("ru.hirus.jcabi.ConnectionAcquisition")
+@Label("JDBC Connection Acquisition")
+@Category("JDBC Wrapper")
+@Description("Acquisition of the connection from DataSource")
+@Enabled(false)
+@StackTrace(true)
+final class ConnectionEvent extends Event {
+
+    @Label("Data Source")
+    @Description("Class of the DataSource")
+    String dataSource;
+}
@@ -0,0 +1,132 @@
+package ru.hirus.jcabi.lazy;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.logging.Logger;
+
+/**
+ * {@link DataSource} that is used by one call of {@link Query#execute(DataSource)}
+ * to observe connections acquired from the original {@link DataSource}
+ * <br>
+ * Read-only execution source marks connections as read-only
+ * and restores the mark when they are closed
+ */
+final class ExecutionSource implements DataSource {
+
+    private final DataSource dataSource;
+    private final boolean readOnly;
+    private int acquired;
+
+    ExecutionSource(DataSource dataSource) {
+        this(dataSource, false);
+    }
+
+    ExecutionSource(DataSource dataSource, boolean readOnly) {
+        this.dataSource = dataSource;
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * @return true if at least one connection was acquired
+     */
+    boolean connected() {
+        return acquired > 0;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        ConnectionEvent event = new ConnectionEvent();
+        event.begin();
+        return acquired(dataSource.getConnection(), event);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        ConnectionEvent event = new ConnectionEvent();
+        event.begin();
+        return acquired(dataSource.getConnection(username, password), event);
+    }
+
+    private Connection acquired(Connection connection, ConnectionEvent event) throws SQLException {
+        acquired++;
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.dataSource = dataSource.getClass().getName();
+            event.commit();
+        }
+        return readOnly ? readOnly(connection) : connection;
+    }
+
+    private static Connection readOnly(Connection connection) throws SQLException {
+        if (connection.isReadOnly()) {
+            return connection;
+        }
+
+        try {
+            connection.setReadOnly(true);
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    // Соединение возвращается в пул в исходном состоянии
+                    if (method.getName().equals("close") && method.getParameterCount() == 0
+                            && !connection.isClosed()) {
+                        try {
+                            connection.setReadOnly(false);
+                        } finally {
+                            connection.close();
+                        }
+                        return null;
+                    }
+
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return dataSource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        dataSource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        dataSource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return dataSource.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return dataSource.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(dataSource) ? iface.cast(dataSource) : dataSource.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(dataSource) || dataSource.isWrapperFor(iface);
+    }
+}
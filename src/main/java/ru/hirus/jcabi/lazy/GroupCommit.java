@@ -0,0 +1,247 @@
+package ru.hirus.jcabi.lazy;
+
+import com.jcabi.jdbc.JdbcSession;
+import com.jcabi.jdbc.StaticSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes small write queries of many callers in one shared
+ * transaction, so they pay for one commit instead of one commit each
+ * <br>
+ * Submitted queries are collected during the window that starts with
+ * the first of them, executed back-to-back on the dedicated connection
+ * and committed together. Every query is executed after its own
+ * savepoint, so the failure of one query fails only its caller
+ * <br>
+ * Queries must not depend on the data written by queries of other
+ * callers, because all of them are committed or lost together
+ * <br>
+ * <b>This class is thread safe</b>
+ */
+public final class GroupCommit implements AutoCloseable {
+
+    private final DataSource dataSource;
+    private final long window;
+    private final int maxBatch;
+    private final BlockingQueue<Request<?>> requests;
+    private final Thread worker;
+    private volatile boolean closed;
+    private Connection connection;
+
+    /**
+     * @param window   time to wait for other queries after the first one
+     * @param maxBatch max count of queries committed together
+     */
+    public GroupCommit(DataSource dataSource, Duration window, int maxBatch) {
+        if (maxBatch < 1) {
+            throw new IllegalArgumentException("maxBatch must be positive");
+        }
+
+        this.dataSource = dataSource;
+        this.window = window.toNanos();
+        this.maxBatch = maxBatch;
+        this.requests = new LinkedBlockingQueue<>();
+
+        this.worker = new Thread(this::work, "group-commit");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Submits query to the next group
+     *
+     * @return future that is completed after the commit of the group
+     */
+    public <R> CompletableFuture<R> submit(Query<R> query) {
+        Request<R> request = new Request<>(query);
+        if (closed) {
+            request.future.completeExceptionally(new SQLException("Group commit is closed"));
+            return request.future;
+        }
+
+        requests.add(request);
+
+        // Если закрытие началось после проверки, запрос мог остаться
+        // в очереди после последнего опустошения, и его никто не завершит.
+        // Удалить его удаётся, только если его ещё никто не забрал
+        if (closed && requests.remove(request)) {
+            request.future.completeExceptionally(new SQLException("Group commit is closed"));
+        }
+        return request.future;
+    }
+
+    /**
+     * Submits query to the next group and waits for its commit
+     *
+     * @return result of the query
+     */
+    public <R> R execute(Query<R> query) throws SQLException {
+        try {
+            return submit(query).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException cause) {
+                throw cause;
+            }
+            throw new SQLException(e.getCause());
+        }
+    }
+
+    /**
+     * Commits already submitted queries and releases the connection
+     */
+    @Override
+    public void close() throws SQLException {
+        closed = true;
+        worker.interrupt();
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        Request<?> request;
+        while ((request = requests.poll()) != null) {
+            request.future.completeExceptionally(new SQLException("Group commit is closed"));
+        }
+
+        if (connection != null) {
+            connection.close();
+            connection = null;
+        }
+    }
+
+    private void work() {
+        List<Request<?>> group = new ArrayList<>();
+        while (!closed || !requests.isEmpty()) {
+            try {
+                collect(group);
+            } catch (InterruptedException e) {
+                // Закрытие: дописываем то, что уже успели принять
+                requests.drainTo(group, maxBatch - group.size());
+            }
+
+            if (!group.isEmpty()) {
+                commit(group);
+                group.clear();
+            }
+        }
+    }
+
+    private void collect(List<Request<?>> group) throws InterruptedException {
+        Request<?> first = closed ? requests.poll() : requests.take();
+        if (first == null) {
+            return;
+        }
+        group.add(first);
+
+        long deadline = System.nanoTime() + window;
+        while (group.size() < maxBatch) {
+            long left = deadline - System.nanoTime();
+            Request<?> next = left > 0 ? requests.poll(left, TimeUnit.NANOSECONDS) : requests.poll();
+            if (next == null) {
+                return;
+            }
+            group.add(next);
+        }
+    }
+
+    private void commit(List<Request<?>> group) {
+        List<Request<?>> executed = new ArrayList<>();
+        try {
+            if (connection == null || connection.isClosed()) {
+                connection = dataSource.getConnection();
+                connection.setAutoCommit(false);
+            }
+
+            for (Request<?> request : group) {
+                if (request.execute(connection)) {
+                    executed.add(request);
+                }
+            }
+
+            connection.commit();
+        } catch (SQLException e) {
+            for (Request<?> request : group) {
+                request.future.completeExceptionally(e);
+            }
+            reset(e);
+            return;
+        }
+
+        for (Request<?> request : executed) {
+            request.complete();
+        }
+    }
+
+    private void reset(SQLException cause) {
+        if (connection == null) {
+            return;
+        }
+
+        try {
+            connection.rollback();
+            connection.close();
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        } finally {
+            connection = null;
+        }
+    }
+
+    private static final class Request<R> {
+
+        private final Query<R> query;
+        private final CompletableFuture<R> future;
+        private R result;
+
+        private Request(Query<R> query) {
+            this.query = query;
+            this.future = new CompletableFuture<>();
+        }
+
+        /**
+         * Executes query after its own savepoint
+         *
+         * @return true if the query was executed, false if it failed
+         * and its changes were rolled back to the savepoint
+         * @throws SQLException if the shared transaction is broken
+         */
+        private boolean execute(Connection connection) throws SQLException {
+            Savepoint savepoint = connection.setSavepoint();
+            JdbcSession jdbcSession = new JdbcSession(
+                    new StaticSource(GuardedConnection.guard(connection, savepoint))
+            ).autocommit(false);
+
+            try (SessionScope ignored = SessionScope.enter(jdbcSession)) {
+                result = query.prepare(jdbcSession).execute();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback(savepoint);
+                connection.releaseSavepoint(savepoint);
+                future.completeExceptionally(e);
+                return false;
+            }
+
+            connection.releaseSavepoint(savepoint);
+            return true;
+        }
+
+        private void complete() {
+            future.complete(result);
+        }
+    }
+}
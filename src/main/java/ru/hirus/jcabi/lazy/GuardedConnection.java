@@ -0,0 +1,56 @@
+package ru.hirus.jcabi.lazy;
+
+import com.jcabi.jdbc.JdbcSession;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Savepoint;
+
+/**
+ * Wraps connection that is shared by several {@link JdbcSession}
+ * and is managed by the code that owns it
+ * <br>
+ * {@link JdbcSession} closes the connection and rolls it back on failure.
+ * Guarded connection ignores {@link Connection#close()} and
+ * {@link Connection#commit()}, and rolls back only to the provided
+ * savepoint, so the failure of one session does not affect others
+ */
+final class GuardedConnection {
+
+    private GuardedConnection() {
+
+    }
+
+    /**
+     * @param savepoint savepoint to roll back to or null
+     *                  if the whole transaction has to be rolled back
+     */
+    static Connection guard(Connection connection, Savepoint savepoint) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                        case "commit":
+                            if (method.getParameterCount() == 0) {
+                                return null;
+                            }
+                            break;
+                        case "rollback":
+                            if (method.getParameterCount() == 0 && savepoint != null) {
+                                connection.rollback(savepoint);
+                                return null;
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
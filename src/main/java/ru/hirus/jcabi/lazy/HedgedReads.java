@@ -0,0 +1,224 @@
+package ru.hirus.jcabi.lazy;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executes select queries on the primary {@link DataSource} and, if it
+ * does not respond in time, also on the secondary one, using the result
+ * that comes first
+ * <br>
+ * The delay is usually set to the high percentile of the latency of
+ * the primary, e.g. p95, so only slow executions are hedged. Statements
+ * of the losing execution are cancelled
+ * <br>
+ * Every execution adds a fraction of a hedge to the budget, and every
+ * hedge spends a whole one, so the count of hedges does not exceed this
+ * fraction of executions even if the primary becomes slow for all of them
+ * <br>
+ * <b>This class is thread safe</b>
+ */
+public final class HedgedReads {
+
+    private static final double MAX_TOKENS = 10;
+
+    private final DataSource primary;
+    private final DataSource secondary;
+    private final long delay;
+    private final double budget;
+    private final Executor executor;
+
+    private final LongAdder executions;
+    private final LongAdder hedges;
+    private final LongAdder hedgeWins;
+    private final LongAdder throttled;
+    private double tokens;
+
+    /**
+     * @param delay    time to wait for the primary before sending the hedge
+     * @param budget   max fraction of executions that may be hedged, e.g. 0.05
+     * @param executor executor of both executions
+     */
+    public HedgedReads(DataSource primary, DataSource secondary, Duration delay, double budget, Executor executor) {
+        if (budget < 0 || budget > 1) {
+            throw new IllegalArgumentException("budget must be between 0 and 1");
+        }
+
+        this.primary = primary;
+        this.secondary = secondary;
+        this.delay = delay.toNanos();
+        this.budget = budget;
+        this.executor = executor;
+
+        this.executions = new LongAdder();
+        this.hedges = new LongAdder();
+        this.hedgeWins = new LongAdder();
+        this.throttled = new LongAdder();
+        this.tokens = MAX_TOKENS;
+    }
+
+    /**
+     * Creates hedged reads that execute queries using daemon threads,
+     * which are stopped when they are idle
+     */
+    public HedgedReads(DataSource primary, DataSource secondary, Duration delay, double budget) {
+        this(primary, secondary, delay, budget, Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "hedged-reads");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    /**
+     * Executes the query in its own transaction
+     *
+     * @return result of the execution that completed successfully first
+     * @throws UnsupportedOperationException if the query is not a select
+     *                                       or has custom preparations
+     */
+    public <R> R execute(JdbcQuery<R> query) throws SQLException {
+        query.requireReadOnly();
+        executions.increment();
+        deposit();
+
+        Attempt<R> first = new Attempt<>(query, primary);
+        try {
+            return first.future.get(delay, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // Основная попытка медленная, дальше решает бюджет
+        } catch (InterruptedException e) {
+            first.cancel();
+            Thread.currentThread().interrupt();
+            throw new SQLException(e);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+
+        if (!withdraw()) {
+            throttled.increment();
+            return await(first.future);
+        }
+        hedges.increment();
+
+        Attempt<R> second = new Attempt<>(query, secondary);
+        CompletableFuture<R> winner = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        race(first, winner, failures, false);
+        race(second, winner, failures, true);
+
+        try {
+            return await(winner);
+        } finally {
+            first.cancel();
+            second.cancel();
+        }
+    }
+
+    /**
+     * @return counters of executions
+     */
+    public Metrics metrics() {
+        return new Metrics(executions.sum(), hedges.sum(), hedgeWins.sum(), throttled.sum());
+    }
+
+    private synchronized void deposit() {
+        tokens = Math.min(MAX_TOKENS, tokens + budget);
+    }
+
+    private synchronized boolean withdraw() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens--;
+        return true;
+    }
+
+    /**
+     * Completes the winner with the result of the attempt if it is the
+     * first successful one, or with its failure if both attempts failed
+     */
+    private <R> void race(Attempt<R> attempt, CompletableFuture<R> winner, AtomicInteger failures, boolean hedge) {
+        attempt.future.whenComplete((result, failure) -> {
+            if (failure == null) {
+                // Победа считается до завершения, чтобы вызывающий уже видел её в метриках
+                synchronized (winner) {
+                    if (!winner.isDone()) {
+                        if (hedge) {
+                            hedgeWins.increment();
+                        }
+                        winner.complete(result);
+                    }
+                }
+            } else if (failures.incrementAndGet() == 2) {
+                winner.completeExceptionally(failure);
+            }
+        });
+    }
+
+    private static <R> R await(CompletableFuture<R> future) throws SQLException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(e);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static SQLException unwrap(Throwable cause) {
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof SQLException sqlException) {
+            return new SQLException(sqlException.getMessage(), sqlException.getSQLState(),
+                    sqlException.getErrorCode(), sqlException);
+        }
+        return new SQLException(cause);
+    }
+
+    /**
+     * Counters of {@link HedgedReads}
+     *
+     * @param executions count of executed queries
+     * @param hedges     count of queries sent to the secondary
+     * @param hedgeWins  count of queries where the secondary responded first
+     * @param throttled  count of slow queries that were not hedged,
+     *                   because the budget was exhausted
+     */
+    public record Metrics(long executions, long hedges, long hedgeWins, long throttled) {
+    }
+
+    private final class Attempt<R> {
+
+        private final CancellableSource source;
+        private final CompletableFuture<R> future;
+
+        private Attempt(JdbcQuery<R> query, DataSource dataSource) {
+            this.source = new CancellableSource(dataSource);
+            this.future = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return query.execute(source);
+                } catch (SQLException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor);
+        }
+
+        private void cancel() {
+            if (!future.isDone()) {
+                source.cancel();
+            }
+        }
+    }
+}
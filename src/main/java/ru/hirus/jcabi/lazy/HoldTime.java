@@ -0,0 +1,250 @@
+package ru.hirus.jcabi.lazy;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * Analyzer of the time {@link Transaction} holds its connection
+ * while the application code runs instead of the database
+ * <br>
+ * Every step of the transaction, i.e. one {@link Transaction#thenCompose(java.util.function.Function)}
+ * or {@link Transaction#map(java.util.function.Function)}, is measured separately:
+ * time spent by its {@link JdbcQuery} is the database time, and the rest of it,
+ * e.g. the lambda that initializes the next query or the mapper, is the
+ * continuation time. Steps whose continuation time crosses the threshold
+ * are flagged, and all steps are aggregated by the place in the code
+ * where they were created
+ * <br>
+ * The analyzer measures transactions only after {@link HoldTime#install()},
+ * and creation sites are known only for transactions created after it,
+ * so it is installed at the start of the application
+ * <br>
+ * <b>This class is thread safe</b>
+ */
+public final class HoldTime {
+
+    private static final Set<String> LIBRARY = Set.of(
+            Transaction.class.getName(), Query.class.getName(), Query.Sequence.class.getName(),
+            JdbcQuery.class.getName(), SqlRunnable.class.getName(), HoldTime.class.getName());
+    private static final String FOR_COMPREHENSION = "ru.hirus.jcabi.lazy.forcomprehension.";
+    private static final StackWalker WALKER = StackWalker.getInstance();
+
+    /**
+     * Database and continuation time accounted on the current thread,
+     * so the outer step does not count time of the nested ones
+     */
+    private static final ThreadLocal<long[]> ACCOUNTED = ThreadLocal.withInitial(() -> new long[2]);
+
+    private static volatile HoldTime installed;
+
+    private final long threshold;
+    private final Consumer<Step> listener;
+    private final ConcurrentMap<String, Totals> sites;
+
+    /**
+     * @param threshold continuation time of the step that is flagged
+     * @param listener  consumer of flagged steps, e.g. a logger.
+     *                  It is called by the thread that executed the step
+     */
+    public HoldTime(Duration threshold, Consumer<Step> listener) {
+        this.threshold = threshold.toNanos();
+        this.listener = listener;
+        this.sites = new ConcurrentHashMap<>();
+    }
+
+    public HoldTime(Duration threshold) {
+        this(threshold, step -> {
+        });
+    }
+
+    /**
+     * Makes this analyzer measure all transactions instead of
+     * the installed one
+     *
+     * @return this analyzer
+     */
+    public HoldTime install() {
+        installed = this;
+        return this;
+    }
+
+    /**
+     * Stops the measurement of transactions
+     */
+    public static void uninstall() {
+        installed = null;
+    }
+
+    /**
+     * @return steps aggregated by creation sites, the site that
+     * held connections for the longest time goes first
+     */
+    public Report report() {
+        List<Site> sites = new ArrayList<>();
+        this.sites.forEach((site, totals) -> sites.add(totals.site(site)));
+        sites.sort(Comparator.comparing(Site::continuation).reversed());
+        return new Report(Duration.ofNanos(threshold), sites);
+    }
+
+    /**
+     * Forgets all measured steps
+     */
+    public void reset() {
+        sites.clear();
+    }
+
+    /**
+     * @return installed analyzer or null
+     */
+    static HoldTime installed() {
+        return installed;
+    }
+
+    /**
+     * @return place in the code that called the library,
+     * or null if no analyzer is installed
+     */
+    static String site() {
+        if (installed == null) {
+            return null;
+        }
+        return WALKER.walk(frames -> frames
+                .filter(frame -> !LIBRARY.contains(frame.getClassName())
+                        && !frame.getClassName().startsWith(FOR_COMPREHENSION))
+                .findFirst()
+                .map(frame -> frame.toStackTraceElement().toString())
+                .orElse(null));
+    }
+
+    /**
+     * Accounts time spent by the query in the database
+     *
+     * @param started {@link System#nanoTime()} at the start of the query
+     */
+    static void database(long started) {
+        if (installed != null) {
+            ACCOUNTED.get()[0] += System.nanoTime() - started;
+        }
+    }
+
+    /**
+     * Starts the measurement of the step
+     *
+     * @param site creation site of the step or null if it is unknown
+     */
+    Measurement start(String site) {
+        return new Measurement(site == null ? "unknown" : site);
+    }
+
+    final class Measurement {
+
+        private final String site;
+        private final long[] accounted;
+        private final long database;
+        private final long continuation;
+        private final long started;
+
+        private Measurement(String site) {
+            this.site = site;
+            this.accounted = ACCOUNTED.get();
+            this.database = accounted[0];
+            this.continuation = accounted[1];
+            this.started = System.nanoTime();
+        }
+
+        void stop() {
+            long elapsed = System.nanoTime() - started;
+            long database = accounted[0] - this.database;
+            long continuation = Math.max(0, elapsed - database - (accounted[1] - this.continuation));
+            accounted[1] += continuation;
+
+            boolean flagged = continuation >= threshold;
+            sites.computeIfAbsent(site, key -> new Totals()).add(database, continuation, flagged);
+            if (flagged) {
+                listener.accept(new Step(site, Duration.ofNanos(database), Duration.ofNanos(continuation)));
+            }
+        }
+    }
+
+    /**
+     * Step that held the connection longer than the threshold
+     *
+     * @param site         place in the code where the step was created
+     * @param database     time spent by queries of the step
+     * @param continuation time spent by the application code of the step
+     */
+    public record Step(String site, Duration database, Duration continuation) {
+    }
+
+    /**
+     * Steps created at one place in the code
+     *
+     * @param site            place in the code
+     * @param steps           count of executed steps
+     * @param flagged         count of steps that crossed the threshold
+     * @param database        total time spent by queries
+     * @param continuation    total time spent by the application code
+     * @param maxContinuation the longest time spent by the application code in one step
+     */
+    public record Site(String site, long steps, long flagged, Duration database,
+                       Duration continuation, Duration maxContinuation) {
+    }
+
+    /**
+     * Result of {@link HoldTime#report()}
+     *
+     * @param threshold continuation time of the flagged step
+     * @param sites     measured sites, the worst one goes first
+     */
+    public record Report(Duration threshold, List<Site> sites) {
+
+        /**
+         * @return sites with at least one flagged step
+         */
+        public List<Site> flagged() {
+            return sites.stream().filter(site -> site.flagged() > 0).toList();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder(String.format(Locale.ROOT, "%10s %8s %12s %12s %12s  %s%n",
+                    "steps", "flagged", "database", "continuation", "max", "site"));
+            for (Site site : sites) {
+                builder.append(String.format(Locale.ROOT, "%10d %8d %12d %12d %12d  %s%n", site.steps(),
+                        site.flagged(), site.database().toMillis(), site.continuation().toMillis(),
+                        site.maxContinuation().toMillis(), site.site()));
+            }
+            return builder.append("Times are in milliseconds, steps with continuation over ")
+                    .append(threshold.toMillis()).append(" ms are flagged").toString();
+        }
+    }
+
+    private static final class Totals {
+
+        private long steps;
+        private long flagged;
+        private long database;
+        private long continuation;
+        private long maxContinuation;
+
+        private synchronized void add(long database, long continuation, boolean flagged) {
+            this.steps++;
+            this.flagged += flagged ? 1 : 0;
+            this.database += database;
+            this.continuation += continuation;
+            this.maxContinuation = Math.max(maxContinuation, continuation);
+        }
+
+        private synchronized Site site(String site) {
+            return new Site(site, steps, flagged, Duration.ofNanos(database),
+                    Duration.ofNanos(continuation), Duration.ofNanos(maxContinuation));
+        }
+    }
+}
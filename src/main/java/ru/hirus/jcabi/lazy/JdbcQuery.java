@@ -6,7 +6,11 @@ import com.jcabi.jdbc.Preparation;
 import org.intellij.lang.annotations.Language;
 import ru.hirus.jcabi.Nothing;
 
+import javax.sql.DataSource;
+import javax.sql.rowset.CachedRowSet;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.*;
 import java.util.function.Function;
 
@@ -20,23 +24,41 @@ import java.util.function.Function;
  */
 public final class JdbcQuery<R> implements Query<R> {
 
+    private static final Function<Object, Object> UNMAPPED = Function.identity();
+
     private final Exception exception;
     private final List<Preparation> preparations;
-    private final List<Object> arguments;
+    private final Arguments arguments;
     private final OptionalJdbcExecutor executor;
+    private final Kind kind;
     private final String sql;
-    private final Optional<Outcome<R>> outcome;
+    private final Optional<Outcome<Object>> outcome;
+    private final Function<Object, ? extends R> mapper;
+    private final boolean cached;
+    private final boolean readOnly;
+
+    private JdbcQuery(List<Preparation> preparations, Arguments arguments, OptionalJdbcExecutor executor,
+                      Kind kind, String sql, Optional<Outcome<Object>> outcome,
+                      Function<Object, ? extends R> mapper, boolean cached, boolean readOnly) {
+        this(new Exception("Stack trace of initialization"), preparations, arguments, executor, kind, sql,
+                outcome, mapper, cached, readOnly);
+    }
 
-    private JdbcQuery(List<Preparation> preparations, List<Object> arguments, OptionalJdbcExecutor executor,
-                      String sql, Optional<Outcome<R>> outcome) {
-        this.exception = new Exception("Stack trace of initialization");
+    private JdbcQuery(Exception exception, List<Preparation> preparations, Arguments arguments,
+                      OptionalJdbcExecutor executor, Kind kind, String sql, Optional<Outcome<Object>> outcome,
+                      Function<Object, ? extends R> mapper, boolean cached, boolean readOnly) {
+        this.exception = exception;
 
         this.preparations = new ArrayList<>(preparations);
-        this.arguments = new ArrayList<>(arguments);
+        this.arguments = arguments;
         this.executor = executor;
+        this.kind = kind;
 
         this.sql = sql;
         this.outcome = outcome;
+        this.mapper = mapper;
+        this.cached = cached;
+        this.readOnly = readOnly;
     }
 
     /**
@@ -44,7 +66,7 @@ public final class JdbcQuery<R> implements Query<R> {
      * {@link JdbcSession#select(Outcome)} query
      */
     public static BuilderSql select() {
-        return new BuilderSql(JdbcSession::select);
+        return new BuilderSql(JdbcSession::select, Kind.SELECT);
     }
 
     /**
@@ -52,7 +74,7 @@ public final class JdbcQuery<R> implements Query<R> {
      * {@link JdbcSession#insert(Outcome)} query
      */
     public static BuilderSql insert() {
-        return new BuilderSql(JdbcSession::insert);
+        return new BuilderSql(JdbcSession::insert, Kind.INSERT);
     }
 
     /**
@@ -60,7 +82,7 @@ public final class JdbcQuery<R> implements Query<R> {
      * {@link JdbcSession#update(Outcome)} query
      */
     public static BuilderSql update() {
-        return new BuilderSql(JdbcSession::update);
+        return new BuilderSql(JdbcSession::update, Kind.UPDATE);
     }
 
     /**
@@ -68,7 +90,7 @@ public final class JdbcQuery<R> implements Query<R> {
      * {@link JdbcSession#call(Outcome)} query
      */
     public static BuilderSql call() {
-        return new BuilderSql(JdbcSession::call);
+        return new BuilderSql(JdbcSession::call, Kind.CALL);
     }
 
     /**
@@ -82,7 +104,7 @@ public final class JdbcQuery<R> implements Query<R> {
                 jdbcSession.execute();
                 return (R) Nothing.INSTANCE;
             }
-        }, true);
+        }, true, Kind.EXECUTE);
     }
 
     @Override
@@ -102,14 +124,160 @@ public final class JdbcQuery<R> implements Query<R> {
 
     /**
      * {@inheritDoc}
+     * <br>
+     * The mapper is applied after the outcome, when the result set
+     * is already closed
      */
     @Override
     public <N> JdbcQuery<N> map(Function<? super R, ? extends N> mapper) {
-        return new JdbcQuery<>(preparations, arguments, executor, sql, outcome.map(outcome1 ->
-                (resultSet, statement) -> {
-                    R result = outcome1.handle(resultSet, statement);
-                    return mapper.apply(result);
-                }));
+        return new JdbcQuery<>(preparations, arguments, executor, kind, sql, outcome,
+                this.mapper.andThen(mapper), cached, readOnly);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br>
+     * Mappers are applied after the commit, so the connection
+     * is returned to the pool before them
+     * <br>
+     * Query declared by {@link JdbcQuery#readOnly()} is executed in autocommit
+     * mode on the connection marked by {@link java.sql.Connection#setReadOnly(boolean)},
+     * so the driver does not begin and commit the transaction around it
+     *
+     * @see JdbcQuery#readOnly()
+     */
+    @Override
+    public R execute(DataSource dataSource) throws SQLException {
+        if (mapper == UNMAPPED) {
+            return readOnly ? executeReadOnly(dataSource) : Query.super.execute(dataSource);
+        }
+
+        Object result = new JdbcQuery<>(exception, preparations, arguments, executor, kind, sql,
+                outcome, UNMAPPED, cached, readOnly).execute(dataSource);
+        return mapper.apply(result);
+    }
+
+    // Один запрос в автокоммите видит те же данные, что и в отдельной
+    // транзакции, поэтому BEGIN и COMMIT для него лишние
+    private R executeReadOnly(DataSource dataSource) throws SQLException {
+        JdbcSession jdbcSession = new JdbcSession(new ExecutionSource(dataSource, true)).autocommit(true);
+        try (SessionScope ignored = SessionScope.enter(jdbcSession)) {
+            return prepare(jdbcSession).execute();
+        }
+    }
+
+    /**
+     * Declares that the query only reads data, so when it is executed by itself
+     * it does not need the transaction, see {@link JdbcQuery#execute(DataSource)}.
+     * The declaration does not affect the query composed into {@link Transaction}
+     * <br>
+     * Queries are not read-only by default, because the select may modify data,
+     * e.g. by {@code nextval()}, {@code FOR UPDATE} or the data-modifying {@code WITH},
+     * and because PgJDBC fetches rows by the fetch size only in the transaction,
+     * so queries with outcomes that stream rows should not be declared.
+     * With PgJDBC's default {@code readOnlyMode=transaction} the read-only
+     * mark is not sent to the server in autocommit mode, the gain is
+     * the absence of {@code BEGIN} and {@code COMMIT}
+     *
+     * @return copy of the query executed without the transaction
+     * @throws UnsupportedOperationException if the query is not a select
+     *                                       or has custom preparations
+     */
+    public JdbcQuery<R> readOnly() {
+        requireReadOnly();
+        return new JdbcQuery<>(exception, preparations, arguments, executor, kind, sql, outcome, mapper, cached,
+                true);
+    }
+
+    /**
+     * Makes the query reuse rows, which it selected earlier in the same
+     * transaction with the same arguments, instead of executing again.
+     * Remembered rows are forgotten when the transaction executes any
+     * query except {@link JdbcQuery#select()}, and are discarded
+     * at the end of the transaction
+     * <br>
+     * Queries with the same SQL and arguments share rows even if
+     * their outcomes are different
+     *
+     * @throws UnsupportedOperationException if the query is not a select
+     *                                       or has custom preparations
+     */
+    public JdbcQuery<R> cached() {
+        requireReadOnly();
+        return new JdbcQuery<>(preparations, arguments, executor, kind, sql, outcome, mapper, true, readOnly);
+    }
+
+    /**
+     * @throws UnsupportedOperationException if the query is not a select
+     *                                       or has custom preparations, so
+     *                                       its arguments are unknown
+     */
+    void requireReadOnly() {
+        if (kind != Kind.SELECT) {
+            throw new UnsupportedOperationException("Only select queries are supported");
+        }
+        if (!preparations.isEmpty()) {
+            throw new UnsupportedOperationException("Queries with custom preparations are not supported");
+        }
+    }
+
+    /**
+     * @return boxed values of arguments bound to the query
+     */
+    List<Object> arguments() {
+        return arguments.values();
+    }
+
+    /**
+     * @return key that is equal for queries with the same SQL and equal arguments
+     */
+    Object key() {
+        return new Selection(sql, arguments.key());
+    }
+
+    /**
+     * @return query that selects the same rows and reads all of them
+     */
+    JdbcQuery<CachedRowSet> rows() {
+        return new JdbcQuery<>(preparations, arguments, executor, kind, sql,
+                Optional.of((resultSet, statement) -> Rows.read(resultSet)), unmapped(), false, readOnly);
+    }
+
+    /**
+     * Handles rows selected by {@link JdbcQuery#rows()} using the outcome of this query
+     */
+    R handle(CachedRowSet rows) throws SQLException {
+        ResultSet copy = Rows.copy(rows);
+        return mapper.apply(outcome.orElseThrow().handle(copy, Rows.statement(copy)));
+    }
+
+    /**
+     * @return kind of the {@link JdbcSession} method that executes the query
+     */
+    Kind kind() {
+        return kind;
+    }
+
+    /**
+     * @return SQL query
+     */
+    String sql() {
+        return sql;
+    }
+
+    /**
+     * @return count of arguments bound to the query or -1 if it
+     * can not be known, because the query has custom preparations
+     */
+    int argumentCount() {
+        return preparations.isEmpty() ? arguments.size() : -1;
+    }
+
+    /**
+     * @return stack trace of the query initialization
+     */
+    Exception origin() {
+        return exception;
     }
 
     /**
@@ -120,25 +288,65 @@ public final class JdbcQuery<R> implements Query<R> {
     @Override
     public SqlRunnable<R> prepare(JdbcSession jdbcSession) {
         return new SqlRunnable<>(() -> {
+            Optional<Outcome<Object>> outcome = this.outcome;
+
+            SessionScope scope = SessionScope.current(jdbcSession);
+            if (scope != null && kind != Kind.SELECT) {
+                scope.invalidate();
+            } else if (scope != null && cached) {
+                Object key = key();
+                ResultSet rows = scope.selected(key);
+                if (rows != null) {
+                    return mapper.apply(outcome.orElseThrow().handle(rows, Rows.statement(rows)));
+                }
+
+                outcome = outcome.map(outcome1 ->
+                        (resultSet, statement) -> outcome1.handle(scope.select(key, resultSet), statement));
+            }
+
+            QueryEvent event = new QueryEvent();
+            event.begin();
+            Object result;
+            long started = System.nanoTime();
             try {
                 jdbcSession.sql(sql);
 
-                for (Object argument : arguments) {
-                    jdbcSession.set(argument);
-                }
+                arguments.prepare(jdbcSession);
 
                 for (Preparation preparation : preparations) {
                     jdbcSession.prepare(preparation);
                 }
 
-                return executor.execute(jdbcSession, outcome);
+                if (!event.isEnabled()) {
+                    result = executor.execute(jdbcSession, outcome);
+                } else {
+                    result = executor.execute(jdbcSession, outcome.map(event::observe));
+                    event.end();
+                    if (event.shouldCommit()) {
+                        event.describe(kind, sql);
+                        event.commit();
+                    }
+                }
             } catch (SQLException e) {
                 e.addSuppressed(exception);
                 throw e;
+            } finally {
+                HoldTime.database(started);
             }
+            return mapper.apply(result);
         });
     }
 
+    private static <R> Function<Object, R> unmapped() {
+        return (Function<Object, R>) UNMAPPED;
+    }
+
+    /**
+     * Key of rows remembered by {@link JdbcQuery#cached()} query
+     */
+    private record Selection(String sql, List<Object> arguments) {
+    }
+
     // Стоит ли выносить этот класс и один ниже в отдельные файлы?
 
     /**
@@ -193,57 +401,103 @@ public final class JdbcQuery<R> implements Query<R> {
         }
     }
 
+    /**
+     * Kind of the {@link JdbcSession} method that executes {@link JdbcQuery}
+     */
+    public enum Kind {
+        SELECT,
+        INSERT,
+        UPDATE,
+        CALL,
+        EXECUTE,
+        /**
+         * Query is executed by custom {@link OptionalJdbcExecutor}
+         */
+        CUSTOM
+    }
+
     public static final class BuilderSql {
 
         private final OptionalJdbcExecutor executor;
         private final boolean emptyOutcome;
+        private final Kind kind;
 
         /**
          * @param executor     adapter that calls corresponding {@link JdbcSession} method
          * @param emptyOutcome if true, outcome must be empty, otherwise not
+         * @param kind         kind of the called {@link JdbcSession} method
          */
-        public BuilderSql(OptionalJdbcExecutor executor, boolean emptyOutcome) {
+        public BuilderSql(OptionalJdbcExecutor executor, boolean emptyOutcome, Kind kind) {
             this.executor = executor;
             this.emptyOutcome = emptyOutcome;
+            this.kind = kind;
+        }
+
+        /**
+         * @param executor     adapter that calls corresponding {@link JdbcSession} method
+         * @param emptyOutcome if true, outcome must be empty, otherwise not
+         */
+        public BuilderSql(OptionalJdbcExecutor executor, boolean emptyOutcome) {
+            this(executor, emptyOutcome, Kind.CUSTOM);
+        }
+
+        /**
+         * @param executor adapter that calls corresponding {@link JdbcSession} method
+         * @param kind     kind of the called {@link JdbcSession} method
+         */
+        public BuilderSql(JdbcExecutor executor, Kind kind) {
+            this(executor.wrap(), false, kind);
         }
 
         /**
          * @param executor adapter that calls corresponding {@link JdbcSession} method
          */
         public BuilderSql(JdbcExecutor executor) {
-            this(executor.wrap(), false);
+            this(executor, Kind.CUSTOM);
         }
 
         /**
          * @see JdbcSession#sql(String)
          */
         public Builder sql(@Language("PostgreSQL") String sql) {
-            return new Builder(executor, emptyOutcome, sql);
+            return new Builder(executor, emptyOutcome, kind, sql);
         }
     }
 
     public static final class Builder {
         private final List<Preparation> preparations;
-        private final List<Object> arguments;
+        private final Arguments arguments;
         private final OptionalJdbcExecutor executor;
         private final boolean emptyOutcome;
+        private final Kind kind;
         private final String sql;
 
         /**
          * @param executor     adapter that calls corresponding {@link JdbcSession} method
          * @param emptyOutcome if true, outcome must be empty, otherwise not
+         * @param kind         kind of the called {@link JdbcSession} method
          * @param sql          SQL query
          */
-        public Builder(OptionalJdbcExecutor executor, boolean emptyOutcome, String sql) {
+        public Builder(OptionalJdbcExecutor executor, boolean emptyOutcome, Kind kind, String sql) {
             preparations = new LinkedList<>();
-            arguments = new LinkedList<>();
+            arguments = new Arguments();
 
             this.executor = executor;
             this.emptyOutcome = emptyOutcome;
+            this.kind = kind;
 
             this.sql = sql;
         }
 
+        /**
+         * @param executor     adapter that calls corresponding {@link JdbcSession} method
+         * @param emptyOutcome if true, outcome must be empty, otherwise not
+         * @param sql          SQL query
+         */
+        public Builder(OptionalJdbcExecutor executor, boolean emptyOutcome, String sql) {
+            this(executor, emptyOutcome, Kind.CUSTOM, sql);
+        }
+
         /**
          * @param executor adapter that calls corresponding {@link JdbcSession} method
          * @param sql      SQL query
@@ -260,7 +514,9 @@ public final class JdbcQuery<R> implements Query<R> {
                 this.arguments.add(null);
                 return this;
             }
-            this.arguments.addAll(Arrays.asList(arguments));
+            for (Object argument : arguments) {
+                this.arguments.add(argument);
+            }
             return this;
         }
 
@@ -269,6 +525,51 @@ public final class JdbcQuery<R> implements Query<R> {
             return this;
         }
 
+        /**
+         * Binds elements as one argument using {@link java.sql.PreparedStatement#setArray(int, java.sql.Array)},
+         * e.g. for {@code id = ANY(?)}, so the SQL does not depend on the count of elements
+         *
+         * @param sqlType SQL name of the element type, e.g. {@code bigint}
+         */
+        public Builder setArray(String sqlType, Collection<?> elements) {
+            arguments.addArray(sqlType, elements);
+            return this;
+        }
+
+        /**
+         * Binds argument using {@link java.sql.PreparedStatement#setLong(int, long)}
+         * without boxing
+         */
+        public Builder setLong(long argument) {
+            arguments.addLong(argument);
+            return this;
+        }
+
+        /**
+         * Binds argument using {@link java.sql.PreparedStatement#setInt(int, int)}
+         * without boxing
+         */
+        public Builder setInt(int argument) {
+            arguments.addInt(argument);
+            return this;
+        }
+
+        /**
+         * Binds argument using {@link java.sql.PreparedStatement#setString(int, String)}
+         */
+        public Builder setString(String argument) {
+            arguments.addString(argument);
+            return this;
+        }
+
+        /**
+         * Binds argument using {@link java.sql.PreparedStatement#setTimestamp(int, Timestamp)}
+         */
+        public Builder setTimestamp(Timestamp argument) {
+            arguments.addTimestamp(argument);
+            return this;
+        }
+
         /**
          * @see JdbcSession#prepare(Preparation)
          */
@@ -282,7 +583,8 @@ public final class JdbcQuery<R> implements Query<R> {
          *
          * @param outcome outcome that will be used to get the result
          * @param <R>     result type
-         * @throws NotCompleteQueryException if SQL is missing or if
+         * @throws NotCompleteQueryException if SQL is missing, if count of arguments
+         *                                   does not match count of placeholders or if
          *                                   {@link Builder#emptyOutcome} is true
          */
         public <R> JdbcQuery<R> build(Outcome<R> outcome) throws NotCompleteQueryException {
@@ -292,7 +594,8 @@ public final class JdbcQuery<R> implements Query<R> {
         /**
          * Builds {@link JdbcQuery} that does not return anything
          *
-         * @throws NotCompleteQueryException if SQL is missing or if
+         * @throws NotCompleteQueryException if SQL is missing, if count of arguments
+         *                                   does not match count of placeholders or if
          *                                   {@link Builder#emptyOutcome} is false
          */
         public JdbcQuery<Nothing> build() throws NotCompleteQueryException {
@@ -301,10 +604,23 @@ public final class JdbcQuery<R> implements Query<R> {
 
         private <R> JdbcQuery<R> build(Optional<Outcome<R>> outcome) throws NotCompleteQueryException {
             validate(outcome);
-            return new JdbcQuery<>(preparations, arguments, executor, sql, outcome);
+            return new JdbcQuery<>(preparations, arguments.freeze(), executor, kind, sql,
+                    (Optional<Outcome<Object>>) (Optional<?>) outcome, unmapped(), false, false);
         }
 
         private <R> void validate(Optional<Outcome<R>> outcome) throws NotCompleteQueryException {
+            if (sql == null) {
+                throw new NotCompleteQueryException("sql is missing");
+            }
+
+            // Пользовательские подготовки могут связывать параметры
+            // сами, поэтому с ними количество аргументов не проверяется
+            int placeholders = Arguments.placeholders(sql);
+            if (preparations.isEmpty() && placeholders != arguments.size()) {
+                throw new NotCompleteQueryException("query has " + placeholders + " placeholders, but "
+                        + arguments.size() + " arguments are bound");
+            }
+
             if (outcome.isEmpty() != emptyOutcome) {
                 if (outcome.isEmpty()) {
                     throw new NotCompleteQueryException("outcome is empty");
@@ -0,0 +1,76 @@
+package ru.hirus.jcabi.lazy;
+
+import com.jcabi.jdbc.JdbcSession;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Represents the load of one key using {@link BatchLoader}
+ * <br>
+ * <b>This class is immutable</b>
+ *
+ * @param <K> key type
+ * @param <V> loaded value type
+ * @param <R> result type
+ * @see Query#load(BatchLoader, Object)
+ */
+final class Load<K, V, R> implements Query<R> {
+
+    private final BatchLoader<K, V> loader;
+    private final K key;
+    private final Function<? super V, ? extends R> mapper;
+
+    Load(BatchLoader<K, V> loader, K key, Function<? super V, ? extends R> mapper) {
+        this.loader = loader;
+        this.key = key;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Loads keys of all loads from provided list using one query per
+     * {@link BatchLoader}. Results are stored in the scope, so
+     * following executions of these loads do not access the database
+     */
+    static void prefetch(SessionScope scope, List<? extends Query<?>> queries) throws SQLException {
+        Map<BatchLoader<?, ?>, Set<Object>> keys = new HashMap<>();
+        for (Query<?> query : queries) {
+            if (query instanceof Load<?, ?, ?> load) {
+                keys.computeIfAbsent(load.loader, l -> new LinkedHashSet<>()).add(load.key);
+            }
+        }
+
+        for (Map.Entry<BatchLoader<?, ?>, Set<Object>> entry : keys.entrySet()) {
+            if (entry.getValue().size() > 1) {
+                @SuppressWarnings("unchecked")
+                BatchLoader<Object, ?> loader = (BatchLoader<Object, ?>) entry.getKey();
+                scope.load(loader, entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <br>
+     * Mapped load is still batched with other loads of the same loader
+     */
+    @Override
+    public <N> Load<K, V, N> map(Function<? super R, ? extends N> mapper) {
+        return new Load<>(loader, key, this.mapper.andThen(mapper));
+    }
+
+    @Override
+    public SqlRunnable<R> prepare(JdbcSession jdbcSession) {
+        return new SqlRunnable<>(() -> {
+            try (SessionScope scope = SessionScope.enter(jdbcSession)) {
+                V value = scope.load(loader, Set.of(key)).get(key);
+                return mapper.apply(value);
+            }
+        });
+    }
+}
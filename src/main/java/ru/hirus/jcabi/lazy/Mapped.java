@@ -0,0 +1,42 @@
+package ru.hirus.jcabi.lazy;
+
+import com.jcabi.jdbc.JdbcSession;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.function.Function;
+
+/**
+ * {@link Query} that applies the pure function to the result
+ * of another {@link Query}
+ * <br>
+ * <b>This class is immutable</b>
+ *
+ * @param <S> result type of the original query
+ * @param <R> result type
+ */
+final class Mapped<S, R> implements Query<R> {
+
+    private final Query<? extends S> query;
+    private final Function<? super S, ? extends R> mapper;
+
+    Mapped(Query<? extends S> query, Function<? super S, ? extends R> mapper) {
+        this.query = query;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public SqlRunnable<R> prepare(JdbcSession jdbcSession) {
+        return new SqlRunnable<>(() -> mapper.apply(query.prepare(jdbcSession).execute()));
+    }
+
+    /**
+     * Executes the original query in its own transaction and applies
+     * the function after the commit, so the connection is returned
+     * to the pool before it
+     */
+    @Override
+    public R execute(DataSource dataSource) throws SQLException {
+        return mapper.apply(query.execute(dataSource));
+    }
+}
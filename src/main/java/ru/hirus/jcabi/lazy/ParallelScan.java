@@ -0,0 +1,361 @@
+package ru.hirus.jcabi.lazy;
+
+import com.jcabi.jdbc.JdbcSession;
+import com.jcabi.jdbc.SingleOutcome;
+import com.jcabi.jdbc.StaticSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Scans a table by partitions of the key range executed in parallel,
+ * each one in its own transaction on its own connection
+ * <br>
+ * By default partitions see different snapshots of the table. On PostgreSQL
+ * {@link ParallelScan#sharedSnapshot()} makes them see one snapshot exported
+ * by one more connection, so the whole scan is consistent as if it was
+ * executed by one query
+ * <br>
+ * <b>This class is immutable</b>
+ *
+ * @param <R> result type of one partition
+ */
+public final class ParallelScan<R> {
+
+    /**
+     * Block number that is greater than any block of PostgreSQL table
+     */
+    private static final long MAX_BLOCK = 0xFFFFFFFFL;
+    private static final Pattern SNAPSHOT = Pattern.compile("[0-9A-Fa-f-]+");
+
+    private final List<Range> ranges;
+    private final Function<? super Range, ? extends Query<? extends R>> partition;
+    private final boolean sharedSnapshot;
+
+    private ParallelScan(List<Range> ranges, Function<? super Range, ? extends Query<? extends R>> partition,
+                         boolean sharedSnapshot) {
+        this.ranges = ranges;
+        this.partition = partition;
+        this.sharedSnapshot = sharedSnapshot;
+    }
+
+    /**
+     * Splits keys from {@code from} inclusive to {@code to} exclusive
+     * into partitions of equal width
+     *
+     * @param partitions max count of partitions, there are fewer of them
+     *                   if the range has fewer keys
+     * @param partition  function that initializes the query of keys
+     *                   of the range, e.g. {@code WHERE id >= ? AND id < ?}
+     * @param <R>        result type of one partition
+     */
+    public static <R> ParallelScan<R> keys(long from, long to, int partitions,
+                                           Function<? super Range, ? extends Query<? extends R>> partition) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("partitions must be positive");
+        }
+        if (from > to) {
+            throw new IllegalArgumentException("from must not be greater than to");
+        }
+
+        // Ширина диапазона считается без знака, она не помещается в long
+        // при отрицательном from, и start + width не переполняется,
+        // так как берется только когда остаток больше ширины
+        long span = to - from;
+        long width = Long.divideUnsigned(span, partitions)
+                + (Long.remainderUnsigned(span, partitions) == 0 ? 0 : 1);
+        List<Range> ranges = new ArrayList<>(partitions);
+        long start = from;
+        while (start < to) {
+            long end = Long.compareUnsigned(to - start, width) <= 0 ? to : start + width;
+            ranges.add(new Range(ranges.size(), start, end));
+            start = end;
+        }
+        return new ParallelScan<>(ranges, partition, false);
+    }
+
+    /**
+     * Splits physical blocks of PostgreSQL table into partitions, so every
+     * partition reads its part of the table by TID range scan without index,
+     * e.g. {@code WHERE ctid >= ?::tid AND ctid < ?::tid} with
+     * {@link Range#fromTid()} and {@link Range#toTid()} as arguments
+     * <br>
+     * The last partition also reads blocks added after the count was taken
+     *
+     * @param blocks count of blocks of the table, see {@link ParallelScan#blocks(String)}
+     * @param <R>    result type of one partition
+     */
+    public static <R> ParallelScan<R> ctid(long blocks, int partitions,
+                                           Function<? super Range, ? extends Query<? extends R>> partition) {
+        List<Range> ranges = new ArrayList<>(keys(0, Math.max(blocks, 1), partitions, partition).ranges);
+        Range last = ranges.remove(ranges.size() - 1);
+        ranges.add(new Range(last.index(), last.from(), MAX_BLOCK));
+        return new ParallelScan<>(ranges, partition, false);
+    }
+
+    /**
+     * @return query of the count of blocks of PostgreSQL table
+     */
+    public static Query<Long> blocks(String table) {
+        return Query.select()
+                .sql("SELECT pg_relation_size(?::regclass) / current_setting('block_size')::bigint")
+                .setString(table)
+                .build(new SingleOutcome<>(Long.class));
+    }
+
+    /**
+     * Makes partitions use one snapshot exported by
+     * {@code pg_export_snapshot()}, which holds one more connection
+     * until the scan completes
+     * <br>
+     * <b>This method is lazy</b>
+     *
+     * @return new scan
+     */
+    public ParallelScan<R> sharedSnapshot() {
+        return new ParallelScan<>(ranges, partition, true);
+    }
+
+    /**
+     * @return ranges of partitions in order of keys
+     */
+    public List<Range> ranges() {
+        return List.copyOf(ranges);
+    }
+
+    /**
+     * Executes partitions using one thread per partition
+     *
+     * @return results of partitions in order of keys
+     * @throws SQLException the first failure of partitions, failures
+     *                      of others are suppressed by it
+     */
+    public List<R> all(DataSource dataSource) throws SQLException {
+        ExecutorService executor = threads();
+        try {
+            return all(dataSource, executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Executes partitions using provided executor. If the snapshot is shared,
+     * the transaction that exported it stays open until the last partition
+     * completes, so partitions queued by the executor still see it
+     *
+     * @return results of partitions in order of keys
+     * @throws SQLException the first failure of partitions, failures
+     *                      of others are suppressed by it
+     */
+    public List<R> all(DataSource dataSource, Executor executor) throws SQLException {
+        return scan(dataSource, executor, result -> {
+        });
+    }
+
+    /**
+     * @param merge function that merges results of partitions in order of keys
+     * @return merged result
+     */
+    public <T> T execute(DataSource dataSource, Function<? super List<R>, ? extends T> merge) throws SQLException {
+        return merge.apply(all(dataSource));
+    }
+
+    /**
+     * Passes results of partitions to the consumer as soon as they
+     * are completed, one at a time
+     */
+    public void forEach(DataSource dataSource, Consumer<? super R> consumer) throws SQLException {
+        ExecutorService executor = threads();
+        try {
+            scan(dataSource, executor, consumer);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private ExecutorService threads() {
+        return Executors.newFixedThreadPool(Math.max(1, ranges.size()), runnable -> {
+            Thread thread = new Thread(runnable, "parallel-scan");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private List<R> scan(DataSource dataSource, Executor executor, Consumer<? super R> consumer)
+            throws SQLException {
+        Connection exporter = null;
+        int isolation = 0;
+        String snapshot = null;
+        if (sharedSnapshot) {
+            exporter = dataSource.getConnection();
+            isolation = exporter.getTransactionIsolation();
+            try {
+                snapshot = export(exporter);
+            } catch (SQLException | RuntimeException e) {
+                release(exporter, isolation, e);
+                throw e;
+            }
+        }
+
+        Object lock = new Object();
+        SQLException failure = null;
+        List<R> results = new ArrayList<>(ranges.size());
+        try {
+            String id = snapshot;
+            List<CompletableFuture<R>> futures = new ArrayList<>(ranges.size());
+            for (Range range : ranges) {
+                Query<? extends R> query = partition.apply(range);
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        R result = id == null ? query.execute(dataSource) : execute(query, dataSource, id);
+                        synchronized (lock) {
+                            consumer.accept(result);
+                        }
+                        return result;
+                    } catch (SQLException e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor));
+            }
+
+            for (CompletableFuture<R> future : futures) {
+                try {
+                    results.add(future.join());
+                } catch (CompletionException e) {
+                    SQLException cause = e.getCause() instanceof SQLException sqlException
+                            ? sqlException : new SQLException(e.getCause());
+                    if (failure == null) {
+                        failure = cause;
+                    } else {
+                        failure.addSuppressed(cause);
+                    }
+                }
+            }
+        } finally {
+            if (exporter != null) {
+                release(exporter, isolation, failure);
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+
+    /**
+     * Opens the transaction on the connection and exports its snapshot
+     *
+     * @return id of the snapshot
+     */
+    private static String export(Connection connection) throws SQLException {
+        connection.setAutoCommit(false);
+        connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT pg_export_snapshot()")) {
+            if (!resultSet.next()) {
+                throw new SQLException("Snapshot was not exported");
+            }
+            return resultSet.getString(1);
+        }
+    }
+
+    /**
+     * Executes the query in the transaction that uses the exported snapshot
+     */
+    private static <R> R execute(Query<? extends R> query, DataSource dataSource, String snapshot)
+            throws SQLException {
+        if (!SNAPSHOT.matcher(snapshot).matches()) {
+            throw new SQLException("Invalid snapshot id: " + snapshot);
+        }
+
+        Connection connection = dataSource.getConnection();
+        int isolation = connection.getTransactionIsolation();
+        Exception failure = null;
+        try {
+            connection.setAutoCommit(false);
+            connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            try (Statement statement = connection.createStatement()) {
+                // Должно быть первым запросом транзакции
+                statement.execute("SET TRANSACTION SNAPSHOT '" + snapshot + "'");
+            }
+
+            JdbcSession jdbcSession = new JdbcSession(
+                    new StaticSource(GuardedConnection.guard(connection, null))
+            ).autocommit(false);
+            R result;
+            try (SessionScope ignored = SessionScope.enter(jdbcSession)) {
+                result = query.prepare(jdbcSession).execute();
+            }
+
+            connection.commit();
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            release(connection, isolation, failure);
+        }
+    }
+
+    /**
+     * Rolls back the transaction of the connection, restores
+     * its isolation level and closes it
+     *
+     * @param cause failure that suppresses failures of the release or null
+     */
+    private static void release(Connection connection, int isolation, Exception cause) throws SQLException {
+        try {
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+            }
+            connection.setTransactionIsolation(isolation);
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            if (cause == null) {
+                connection.close();
+                throw e;
+            }
+            cause.addSuppressed(e);
+        }
+        connection.close();
+    }
+
+    /**
+     * Range of keys of one partition
+     *
+     * @param index number of the partition starting from 0
+     * @param from  first key of the range
+     * @param to    key after the last key of the range
+     */
+    public record Range(int index, long from, long to) {
+
+        /**
+         * @return TID of the first tuple of the {@code from} block
+         */
+        public String fromTid() {
+            return "(" + from + ",0)";
+        }
+
+        /**
+         * @return TID of the first tuple of the {@code to} block
+         */
+        public String toTid() {
+            return "(" + to + ",0)";
+        }
+    }
+}
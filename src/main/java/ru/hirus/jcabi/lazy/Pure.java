@@ -0,0 +1,35 @@
+package ru.hirus.jcabi.lazy;
+
+import com.jcabi.jdbc.JdbcSession;
+
+import javax.sql.DataSource;
+
+/**
+ * {@link Query} that does not touch the database and returns
+ * already known result
+ * <br>
+ * <b>This class is immutable</b>
+ *
+ * @param <R> result type
+ */
+final class Pure<R> implements Query<R> {
+
+    private final R result;
+
+    Pure(R result) {
+        this.result = result;
+    }
+
+    @Override
+    public SqlRunnable<R> prepare(JdbcSession jdbcSession) {
+        return new SqlRunnable<>(() -> result);
+    }
+
+    /**
+     * Returns the result without opening the session
+     */
+    @Override
+    public R execute(DataSource dataSource) {
+        return result;
+    }
+}
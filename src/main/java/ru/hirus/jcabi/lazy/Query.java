@@ -1,11 +1,16 @@
 package ru.hirus.jcabi.lazy;
 
 import com.jcabi.jdbc.JdbcSession;
+import ru.hirus.jcabi.Nothing;
 
 import javax.sql.DataSource;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -24,11 +29,13 @@ public interface Query<R> {
     /**
      * Analogue of the "pure" function a.k.a. "return" from Haskell
      * that wraps provided object in {@code SqlExecutable<R>}
+     * <br>
+     * Executed by itself, it does not acquire a connection
      *
      * @param <R> result type
      */
     static <R> Query<R> pure(R result) {
-        return jdbcSession -> new SqlRunnable<>(() -> result);
+        return new Pure<>(result);
     }
 
     /**
@@ -43,6 +50,87 @@ public interface Query<R> {
         });
     }
 
+    /**
+     * Initializes {@code SqlExecutable<V>} that loads value of provided key
+     * using provided loader. Loads of the same loader placed in one
+     * {@link Sequence} are resolved using one query, and keys that are
+     * already loaded in the current transaction are not loaded again
+     *
+     * @param key not null key
+     * @param <K> key type
+     * @param <V> value type, result is null if the key has no value
+     */
+    static <K, V> Query<V> load(BatchLoader<K, V> loader, K key) {
+        return new Load<>(loader, Objects.requireNonNull(key), Function.identity());
+    }
+
+    /**
+     * Analogue of the "traverse" function from Haskell that initializes
+     * {@code SqlExecutable<R>} for every element only right before its
+     * execution, so initialized queries do not stay in memory
+     * <br>
+     * The iterator is consumed by the execution, so the result
+     * can be executed only once
+     *
+     * @param <A> type of elements
+     * @param <R> type of result elements in the list
+     * @see Sequence
+     */
+    static <A, R> Query<List<R>> traverse(Iterator<? extends A> elements,
+                                          Function<? super A, ? extends Query<? extends R>> query) {
+        return foldLeft(elements, query, new ArrayList<>(), (list, result) -> {
+            list.add(result);
+            return list;
+        });
+    }
+
+    /**
+     * Executes {@code SqlExecutable<R>} initialized for every element
+     * and folds their results from left to right, so neither queries
+     * nor their results stay in memory
+     * <br>
+     * The iterator is consumed by the execution, so the result
+     * can be executed only once
+     *
+     * @param initial initial value of the accumulator
+     * @param reducer function that combines the accumulator and the result
+     * @param <A>     type of elements
+     * @param <R>     result type of queries
+     * @param <S>     type of the accumulator
+     */
+    static <A, R, S> Query<S> foldLeft(Iterator<? extends A> elements,
+                                       Function<? super A, ? extends Query<? extends R>> query,
+                                       S initial,
+                                       BiFunction<? super S, ? super R, ? extends S> reducer) {
+        return jdbcSession -> new SqlRunnable<>(() -> {
+            try (SessionScope ignored = SessionScope.enter(jdbcSession)) {
+                S accumulator = initial;
+                while (elements.hasNext()) {
+                    R result = query.apply(elements.next()).prepare(jdbcSession).execute();
+                    accumulator = reducer.apply(accumulator, result);
+                }
+                return accumulator;
+            }
+        });
+    }
+
+    /**
+     * Executes {@code SqlExecutable<R>} initialized for every element
+     * and passes its result to the consumer
+     *
+     * @param <A> type of elements
+     * @param <R> result type of queries
+     * @see Query#foldLeft(Iterator, Function, Object, BiFunction)
+     */
+    static <A, R> Query<Nothing> forEach(Iterator<? extends A> elements,
+                                         Function<? super A, ? extends Query<? extends R>> query,
+                                         Consumer<? super R> consumer) {
+        return foldLeft(elements, query, Nothing.INSTANCE, (nothing, result) -> {
+            consumer.accept(result);
+            return nothing;
+        });
+    }
+
     /**
      * @see JdbcQuery#select()
      */
@@ -99,17 +187,40 @@ public interface Query<R> {
      * @return result of the operation(s)
      */
     default R execute(DataSource dataSource) throws SQLException {
-        JdbcSession jdbcSession = new JdbcSession(dataSource).autocommit(false);
-        R result = prepare(jdbcSession).execute();
-        try {
-            jdbcSession.commit();
-        } catch (IllegalStateException e) {
-            if (!e.getMessage().equals("Connection is not open, can't commit")) {
-                throw new SQLException(e);
+        ExecutionSource source = new ExecutionSource(dataSource);
+        JdbcSession jdbcSession = new JdbcSession(source).autocommit(false);
+        try (SessionScope ignored = SessionScope.enter(jdbcSession)) {
+            R result = prepare(jdbcSession).execute();
+
+            CommitEvent event = new CommitEvent();
+            event.begin();
+            try {
+                jdbcSession.commit();
+                event.success = true;
+            } catch (IllegalStateException e) {
+                if (!e.getMessage().equals("Connection is not open, can't commit")) {
+                    throw new SQLException(e);
+                }
+            } finally {
+                if (source.connected()) {
+                    event.commit();
+                }
             }
+
+            return result;
         }
+    }
 
-        return result;
+    /**
+     * Routes this {@link Query} to the shard of provided key
+     * of {@link ru.hirus.jcabi.source.ShardedDataSource}
+     * <br>
+     * <b>This method is lazy</b>
+     *
+     * @param <K> type of the shard key
+     */
+    default <K> ShardQuery<K, R> onShard(K key) {
+        return new ShardQuery<>(this, key);
     }
 
     /**
@@ -167,20 +278,23 @@ public interface Query<R> {
      * that converts {@code SqlExecutable<R>} to {@code SqlExecutable<N>}
      * using provided mapper
      * <br>
+     * If the result is executed by itself, the mapper is applied after
+     * the commit, so the connection is not held by pure computations
+     * <br>
      * <b>This method is lazy</b>
      *
      * @param <N> new result type
      */
     default <N> Query<N> map(Function<? super R, ? extends N> mapper) {
-        return jdbcSession -> new SqlRunnable<>(() -> {
-            R result = prepare(jdbcSession).execute();
-            return mapper.apply(result);
-        });
+        return new Mapped<>(this, mapper);
     }
 
     /**
      * Analogue of the "sequence" function from Haskell that converts
      * {@code List<SqlExecutable<R>>} to {@code SqlExecutable<List<R>>}
+     * <br>
+     * Queries initialized by {@link Query#load(BatchLoader, Object)} are
+     * loaded before the execution using one query per {@link BatchLoader}
      *
      * @param <R> type of result elements in the list
      */
@@ -195,12 +309,16 @@ public interface Query<R> {
         @Override
         public SqlRunnable<List<R>> prepare(JdbcSession jdbcSession) {
             return new SqlRunnable<>(() -> {
-                List<R> list = new ArrayList<>();
-                for (Query<? extends R> query : sqlExecutables) {
-                    R result = query.prepare(jdbcSession).execute();
-                    list.add(result);
+                try (SessionScope scope = SessionScope.enter(jdbcSession)) {
+                    Load.prefetch(scope, sqlExecutables);
+
+                    List<R> list = new ArrayList<>();
+                    for (Query<? extends R> query : sqlExecutables) {
+                        R result = query.prepare(jdbcSession).execute();
+                        list.add(result);
+                    }
+                    return list;
                 }
-                return list;
             });
         }
     }
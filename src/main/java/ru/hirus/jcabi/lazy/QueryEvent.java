@@ -0,0 +1,73 @@
+package ru.hirus.jcabi.lazy;
+
+import com.jcabi.jdbc.Outcome;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Flight Recorder event of {@link JdbcQuery} execution
+ * <br>
+ * Event is disabled by default and is enabled by the
+ * {@code jdbc.jfc} settings profile
+ */
+@Name("ru.hirus.jcabi.JdbcQuery")
+@Label("JDBC Query")
+@Category("JDBC Wrapper")
+@Description("Execution of JdbcQuery")
+@Enabled(false)
+@StackTrace(true)
+final class QueryEvent extends Event {
+
+    @Label("Fingerprint")
+    @Description("Hash of the normalized SQL query")
+    String fingerprint;
+
+    @Label("SQL")
+    @Description("Normalized SQL query")
+    String sql;
+
+    @Label("Kind")
+    @Description("Kind of the executed JdbcSession method")
+    String kind;
+
+    @Label("Rows")
+    @Description("Count of rows read by the outcome or count of updated rows")
+    long rows;
+
+    /**
+     * Wraps outcome to count rows that it reads
+     */
+    <R> Outcome<R> observe(Outcome<R> outcome) {
+        return (resultSet, statement) -> {
+            if (resultSet == null) {
+                R result = outcome.handle(null, statement);
+                rows = Math.max(rows, statement.getUpdateCount());
+                return result;
+            }
+
+            CountingResultSet counting = new CountingResultSet(resultSet);
+            R result = outcome.handle(counting, statement);
+            rows = Math.max(rows + counting.rows(), statement.getUpdateCount());
+            return result;
+        };
+    }
+
+    void describe(JdbcQuery.Kind kind, String sql) {
+        String normalized = sql.strip().replaceAll("\\s+", " ");
+
+        CRC32 crc = new CRC32();
+        crc.update(normalized.getBytes(StandardCharsets.UTF_8));
+
+        this.fingerprint = Long.toHexString(crc.getValue());
+        this.sql = normalized;
+        this.kind = kind.name();
+    }
+}
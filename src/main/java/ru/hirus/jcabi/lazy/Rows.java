@@ -0,0 +1,93 @@
+package ru.hirus.jcabi.lazy;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetFactory;
+import javax.sql.rowset.RowSetProvider;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+
+/**
+ * Rows of the result set kept in memory, so they can be
+ * handled by several outcomes
+ */
+final class Rows {
+
+    private Rows() {
+
+    }
+
+    /**
+     * Reads all rows of the result set
+     */
+    static CachedRowSet read(ResultSet resultSet) throws SQLException {
+        CachedRowSet rows = Factory.INSTANCE.createCachedRowSet();
+        rows.populate(resultSet);
+        return rows;
+    }
+
+    /**
+     * @return result set with own cursor positioned before the first row
+     */
+    static ResultSet copy(CachedRowSet rows) throws SQLException {
+        ResultSet shared = rows.createShared();
+        shared.beforeFirst();
+        return shared;
+    }
+
+    /**
+     * Creates statement that is passed to outcomes with reused rows
+     * instead of the executed one. It returns the rows as its result set,
+     * ignores settings, e.g. the fetch size, and has no warnings, but can not
+     * return generated keys or the connection, because nothing was executed
+     */
+    static Statement statement(ResultSet rows) {
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{Statement.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getResultSet" -> rows;
+                    case "getUpdateCount" -> -1;
+                    case "getLargeUpdateCount" -> -1L;
+                    case "getFetchDirection" -> ResultSet.FETCH_FORWARD;
+                    case "getResultSetType" -> ResultSet.TYPE_FORWARD_ONLY;
+                    case "getResultSetConcurrency" -> ResultSet.CONCUR_READ_ONLY;
+                    case "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch",
+                         "executeLargeBatch", "addBatch", "getGeneratedKeys", "getConnection", "unwrap" -> throw new SQLFeatureNotSupportedException(
+                            "Rows are reused, the statement was not executed");
+                    case "toString" -> "Statement of reused rows";
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    // Настройки и закрытие ни на что не влияют, остальные
+                    // свойства имеют значения по умолчанию
+                    default -> defaultValue(method.getReturnType());
+                });
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+
+    /**
+     * Holder of the factory, which is created only if rows are kept
+     */
+    private static final class Factory {
+
+        private static final RowSetFactory INSTANCE;
+
+        static {
+            try {
+                INSTANCE = RowSetProvider.newFactory();
+            } catch (SQLException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package ru.hirus.jcabi.lazy;
+
+import ru.hirus.jcabi.source.ShardedDataSource;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+/**
+ * Executes one {@link Query} on all shards in parallel
+ * and merges their results
+ * <br>
+ * The query is executed in a separate transaction on every shard,
+ * so some shards may commit while others fail
+ */
+public final class ScatterGather {
+
+    private ScatterGather() {
+
+    }
+
+    /**
+     * @return results of the query in order of shards
+     * @throws SQLException the first failure of the query, failures
+     *                      on other shards are suppressed by it, or if
+     *                      the executor rejects the query, e.g. when
+     *                      the sharded data source is closed
+     */
+    public static <R> List<R> all(ShardedDataSource<?> dataSource, Query<? extends R> query) throws SQLException {
+        List<CompletableFuture<R>> futures = new ArrayList<>();
+        try {
+            for (DataSource shard : dataSource.shards()) {
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return query.execute(shard);
+                    } catch (SQLException e) {
+                        throw new CompletionException(e);
+                    }
+                }, dataSource.executor()));
+            }
+        } catch (RejectedExecutionException e) {
+            // Отмененная задача, которая еще ждет в очереди, не выполняется,
+            // а уже начатые запросы завершатся, но их результат не нужен
+            for (CompletableFuture<R> future : futures) {
+                future.cancel(false);
+            }
+            throw new SQLException("Query on all shards is rejected by the executor", e);
+        }
+
+        List<R> results = new ArrayList<>(futures.size());
+        SQLException failure = null;
+        for (CompletableFuture<R> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                SQLException cause = e.getCause() instanceof SQLException sqlException
+                        ? sqlException : new SQLException(e.getCause());
+                if (failure == null) {
+                    failure = cause;
+                } else {
+                    failure.addSuppressed(cause);
+                }
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+
+    /**
+     * @param merge function that merges results of shards in order of shards
+     * @return merged result
+     */
+    public static <R, T> T execute(ShardedDataSource<?> dataSource, Query<? extends R> query,
+                                   Function<? super List<R>, ? extends T> merge) throws SQLException {
+        return merge.apply(all(dataSource, query));
+    }
+
+    /**
+     * Executes query, which result on every shard is sorted,
+     * and merges results keeping the order
+     *
+     * @return sorted results of all shards
+     */
+    public static <E> List<E> sorted(ShardedDataSource<?> dataSource, Query<? extends List<? extends E>> query,
+                                     Comparator<? super E> order) throws SQLException {
+        return merge(all(dataSource, query), order);
+    }
+
+    /**
+     * K-way merge of sorted lists
+     *
+     * @return sorted list of all elements, equal elements
+     * of different lists keep the order of lists
+     */
+    public static <E> List<E> merge(List<? extends List<? extends E>> lists, Comparator<? super E> order) {
+        PriorityQueue<Head<E>> heads = new PriorityQueue<>((a, b) -> {
+            int compared = order.compare(a.value, b.value);
+            return compared != 0 ? compared : Integer.compare(a.list, b.list);
+        });
+
+        int size = 0;
+        for (int i = 0; i < lists.size(); i++) {
+            size += lists.get(i).size();
+            Iterator<? extends E> iterator = lists.get(i).iterator();
+            if (iterator.hasNext()) {
+                heads.add(new Head<>(i, iterator.next(), iterator));
+            }
+        }
+
+        List<E> merged = new ArrayList<>(size);
+        while (!heads.isEmpty()) {
+            Head<E> head = heads.poll();
+            merged.add(head.value);
+            if (head.iterator.hasNext()) {
+                heads.add(new Head<>(head.list, head.iterator.next(), head.iterator));
+            }
+        }
+        return merged;
+    }
+
+    private record Head<E>(int list, E value, Iterator<? extends E> iterator) {
+    }
+}
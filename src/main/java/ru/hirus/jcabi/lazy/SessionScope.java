@@ -0,0 +1,134 @@
+package ru.hirus.jcabi.lazy;
+
+import com.jcabi.jdbc.JdbcSession;
+
+import javax.sql.DataSource;
+import javax.sql.rowset.CachedRowSet;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stores state that lives as long as one {@link JdbcSession}, i.e.
+ * as long as one transaction started by {@link Query#execute(DataSource)}
+ * <br>
+ * Scopes are bound to the current thread, because queries
+ * of one session are always executed sequentially
+ */
+final class SessionScope implements AutoCloseable {
+
+    private static final ThreadLocal<SessionScope> CURRENT = new ThreadLocal<>();
+
+    private final JdbcSession jdbcSession;
+    private final SessionScope outer;
+    private final Map<BatchLoader<?, ?>, Map<Object, Object>> loaded;
+    private final Map<Object, CachedRowSet> selected;
+    private int depth;
+
+    private SessionScope(JdbcSession jdbcSession, SessionScope outer) {
+        this.jdbcSession = jdbcSession;
+        this.outer = outer;
+        this.loaded = new HashMap<>();
+        this.selected = new HashMap<>();
+        this.depth = 1;
+    }
+
+    /**
+     * Enters the scope of provided session. If the scope is already
+     * entered by this thread, the same scope is returned
+     * <br>
+     * The scope is discarded when it is closed as many times as it was entered
+     */
+    static SessionScope enter(JdbcSession jdbcSession) {
+        SessionScope current = CURRENT.get();
+        if (current != null && current.jdbcSession == jdbcSession) {
+            current.depth++;
+            return current;
+        }
+
+        SessionScope scope = new SessionScope(jdbcSession, current);
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    /**
+     * @return scope of provided session entered by this thread or null
+     */
+    static SessionScope current(JdbcSession jdbcSession) {
+        SessionScope current = CURRENT.get();
+        return current != null && current.jdbcSession == jdbcSession ? current : null;
+    }
+
+    /**
+     * @return copy of rows selected by the query with provided key
+     * in this scope, positioned before the first row, or null
+     */
+    ResultSet selected(Object key) throws SQLException {
+        CachedRowSet rows = selected.get(key);
+        return rows == null ? null : Rows.copy(rows);
+    }
+
+    /**
+     * Reads all rows of the result set and remembers them until
+     * the scope is discarded or invalidated
+     *
+     * @return copy of rows positioned before the first row
+     */
+    ResultSet select(Object key, ResultSet resultSet) throws SQLException {
+        CachedRowSet rows = Rows.read(resultSet);
+        selected.put(key, rows);
+        return Rows.copy(rows);
+    }
+
+    /**
+     * Forgets selected rows and loaded values, because the session modified data
+     */
+    void invalidate() {
+        selected.clear();
+        loaded.clear();
+    }
+
+    /**
+     * Returns values of provided keys, loading only keys that were
+     * not loaded by this loader in this scope yet
+     *
+     * @return map that contains all provided keys, including absent ones
+     */
+    @SuppressWarnings("unchecked")
+    <K, V> Map<K, V> load(BatchLoader<K, V> loader, Collection<? extends K> keys) throws SQLException {
+        Map<K, V> memo = (Map<K, V>) loaded.computeIfAbsent(loader, l -> new HashMap<>());
+
+        Set<K> missing = new LinkedHashSet<>();
+        for (K key : keys) {
+            if (!memo.containsKey(key)) {
+                missing.add(key);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            Map<K, V> values = loader.loadAll(missing).prepare(jdbcSession).execute();
+            for (K key : missing) {
+                memo.put(key, values.get(key));
+            }
+        }
+
+        return memo;
+    }
+
+    @Override
+    public void close() {
+        if (--depth > 0) {
+            return;
+        }
+
+        if (outer == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(outer);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package ru.hirus.jcabi.lazy;
+
+import ru.hirus.jcabi.source.ShardedDataSource;
+
+import java.sql.SQLException;
+
+/**
+ * {@link Query} routed to the shard of the key
+ *
+ * @param <K> type of the shard key
+ * @param <R> result type
+ */
+public record ShardQuery<K, R>(Query<R> query, K key) {
+
+    /**
+     * Executes the query in the transaction on the shard of the key
+     *
+     * @return result of the query
+     */
+    public R execute(ShardedDataSource<? super K> dataSource) throws SQLException {
+        return query.execute(dataSource.shard(key));
+    }
+}
@@ -0,0 +1,104 @@
+package ru.hirus.jcabi.lazy;
+
+import javax.sql.DataSource;
+import javax.sql.rowset.CachedRowSet;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executes concurrent identical select queries once
+ * <br>
+ * The query that arrives while the same query with the same
+ * arguments is executed on the same {@link DataSource} does not
+ * go to the database and waits for rows of the executed one. Rows are
+ * forgotten as soon as the execution completes, so the query that
+ * arrives later is executed again and never sees stale data
+ * <br>
+ * Every caller handles rows using the outcome of its own query,
+ * so queries may differ in outcomes and mappers
+ * <br>
+ * <b>This class is thread safe</b>
+ */
+public final class SingleFlight {
+
+    private final ConcurrentMap<Flight, CompletableFuture<CachedRowSet>> flights;
+    private final AtomicInteger waiting;
+
+    public SingleFlight() {
+        this.flights = new ConcurrentHashMap<>();
+        this.waiting = new AtomicInteger();
+    }
+
+    /**
+     * Executes the query in its own transaction or waits
+     * for the identical query that is already executed
+     *
+     * @return result of the query
+     * @throws UnsupportedOperationException if the query is not a select
+     *                                       or has custom preparations
+     */
+    public <R> R execute(JdbcQuery<R> query, DataSource dataSource) throws SQLException {
+        query.requireReadOnly();
+
+        Flight key = new Flight(dataSource, query.key());
+        CompletableFuture<CachedRowSet> flight = new CompletableFuture<>();
+        CompletableFuture<CachedRowSet> leader = flights.putIfAbsent(key, flight);
+        if (leader != null) {
+            waiting.incrementAndGet();
+            try {
+                return query.handle(await(leader));
+            } finally {
+                waiting.decrementAndGet();
+            }
+        }
+
+        CachedRowSet rows;
+        try {
+            rows = query.rows().execute(dataSource);
+        } catch (Throwable e) {
+            // Даже Error завершает ожидание последователей, иначе они и все
+            // следующие вызовы того же запроса ждали бы вечно
+            flights.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+        flights.remove(key, flight);
+        flight.complete(rows);
+        return query.handle(rows);
+    }
+
+    /**
+     * @return count of queries that are executed right now
+     */
+    public int inFlight() {
+        return flights.size();
+    }
+
+    /**
+     * @return count of queries that wait for rows of identical executed queries
+     */
+    public int waiting() {
+        return waiting.get();
+    }
+
+    private static CachedRowSet await(CompletableFuture<CachedRowSet> flight) throws SQLException {
+        try {
+            return flight.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException cause) {
+                throw new SQLException(cause.getMessage(), cause.getSQLState(), cause.getErrorCode(), cause);
+            }
+            throw new SQLException(e.getCause());
+        }
+    }
+
+    private record Flight(DataSource dataSource, Object query) {
+    }
+}
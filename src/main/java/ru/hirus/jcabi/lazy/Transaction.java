@@ -3,6 +3,8 @@ package ru.hirus.jcabi.lazy;
 import com.jcabi.jdbc.JdbcSession;
 import ru.hirus.jcabi.Nothing;
 
+import javax.sql.DataSource;
+import java.sql.SQLException;
 import java.util.Optional;
 import java.util.function.Function;
 
@@ -18,15 +20,21 @@ public final class Transaction<R> implements Query<R> {
 
     private final Function<Object, Query<? extends R>> sqlExecutable;
     private final Optional<Transaction<?>> previous;
+    private final Optional<Query<? extends R>> query;
+    private final String site;
 
     private <P> Transaction(Function<? super P, Query<? extends R>> sqlExecutable, Transaction<P> previous) {
         this.sqlExecutable = (Function<Object, Query<? extends R>>) sqlExecutable;
         this.previous = Optional.of(previous);
+        this.query = Optional.empty();
+        this.site = HoldTime.site();
     }
 
     public Transaction(Query<? extends R> query) {
         this.sqlExecutable = r -> query;
         this.previous = Optional.empty();
+        this.query = Optional.of(query);
+        this.site = HoldTime.site();
     }
 
     /**
@@ -62,37 +70,49 @@ public final class Transaction<R> implements Query<R> {
      */
     @Override
     public <N> Transaction<N> map(Function<? super R, ? extends N> mapper) {
-        // Стоит ли это вынести в приватный метод?
-        Function<Object, Query<? extends N>> fmap = p -> {
-            Query<? extends R> apply = sqlExecutable.apply(p);
-            return apply.<N>map(mapper::apply);
-        };
+        return new Transaction<>(new Mapped<>(this, mapper));
+    }
 
-        if (previous.isEmpty()) {
-            return new Transaction<>(fmap.apply(Nothing.INSTANCE));
-        } else {
-            return new Transaction<>(fmap::apply, previous.get());
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public R execute(DataSource dataSource) throws SQLException {
+        // Транзакция из одного запроса выполняется им самим,
+        // чтобы отображения в конце шли уже после коммита
+        if (query.isPresent()) {
+            return query.get().execute(dataSource);
         }
+        return Query.super.execute(dataSource);
     }
 
     /**
      * Executes this and all previous executables wrapped
+     * <br>
+     * If {@link HoldTime} is installed, every step is measured by it
      *
      * @return result of the transaction
      */
     @Override
     public SqlRunnable<R> prepare(JdbcSession jdbcSession) {
         return new SqlRunnable<>(() -> {
-            Query<? extends R> obtainedQuery;
-
+            Object result = Nothing.INSTANCE;
             if (previous.isPresent()) {
-                Object result = previous.get().prepare(jdbcSession).execute();
-                obtainedQuery = sqlExecutable.apply(result);
-            } else {
-                obtainedQuery = sqlExecutable.apply(Nothing.INSTANCE);
+                result = previous.get().prepare(jdbcSession).execute();
             }
 
-            return obtainedQuery.prepare(jdbcSession).execute();
+            HoldTime holdTime = HoldTime.installed();
+            if (holdTime == null) {
+                return sqlExecutable.apply(result).prepare(jdbcSession).execute();
+            }
+
+            // Предыдущие шаги измеряются сами, здесь только этот
+            HoldTime.Measurement measurement = holdTime.start(site);
+            try {
+                return sqlExecutable.apply(result).prepare(jdbcSession).execute();
+            } finally {
+                measurement.stop();
+            }
         });
     }
 }
@@ -0,0 +1,477 @@
+package ru.hirus.jcabi.lazy;
+
+import com.jcabi.jdbc.JdbcSession;
+import com.jcabi.jdbc.StaticSource;
+import ru.hirus.jcabi.outcome.RowCodec;
+
+import javax.sql.DataSource;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+/**
+ * Reference data loaded by registered queries, which is persisted
+ * to the local snapshot file, so the next start of the application
+ * reads it from the disk instead of the database
+ * <br>
+ * {@link WarmStart#start()} maps the snapshot and decodes its rows if the
+ * file is valid and was written for the same tables and SQL, and then
+ * revalidates it in background by the version query, e.g.
+ * {@code SELECT max(updated_at)::text FROM country}. Rows are reloaded
+ * from the database and the snapshot is rewritten only when the version
+ * differs. Without a valid snapshot rows are loaded synchronously
+ * <br>
+ * The version and all tables are loaded in one transaction with the
+ * {@link Connection#TRANSACTION_REPEATABLE_READ} isolation, so they are read
+ * from one snapshot of the database, and are published together, so
+ * {@link Table#rows()} of different tables belong to the same version
+ * if they are read after the same load
+ * <br>
+ * <b>This class is thread safe</b>
+ */
+public final class WarmStart {
+
+    private static final int MAGIC = 0x4A575354;
+    private static final int FORMAT = 1;
+
+    /**
+     * Magic, format, length and checksum of the body
+     */
+    private static final int HEADER_SIZE = 24;
+
+    /**
+     * Origin of rows published by {@link WarmStart#start()}
+     */
+    public enum Origin {
+        SNAPSHOT,
+        DATABASE
+    }
+
+    private final DataSource dataSource;
+    private final Path file;
+    private final Query<String> version;
+    private final Executor executor;
+    private final Map<String, Table<?>> tables;
+    private volatile State state;
+
+    /**
+     * @param file     snapshot file, which is created if it does not exist
+     * @param version  cheap query of the version of reference data,
+     *                 which changes whenever any of tables changes
+     * @param executor executor of revalidations
+     */
+    public WarmStart(DataSource dataSource, Path file, Query<String> version, Executor executor) {
+        this.dataSource = dataSource;
+        this.file = file;
+        this.version = version;
+        this.executor = executor;
+        this.tables = new LinkedHashMap<>();
+    }
+
+    /**
+     * Creates warm start that revalidates the snapshot using daemon
+     * threads, which are stopped when they are idle
+     */
+    public WarmStart(DataSource dataSource, Path file, Query<String> version) {
+        this(dataSource, file, version, Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "warm-start");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    /**
+     * Registers query of the reference table. Must be called
+     * before {@link WarmStart#start()}
+     *
+     * @param name  unique name of the table in the snapshot
+     * @param query query without custom preparations, which SQL
+     *              identifies the table in the snapshot
+     * @param codec encodes rows in the snapshot
+     * @return table, which rows are available after the start
+     */
+    public synchronized <T> Table<T> register(String name, JdbcQuery<List<T>> query, RowCodec<T> codec) {
+        if (state != null) {
+            throw new IllegalStateException("Warm start is already started");
+        }
+        if (tables.containsKey(name)) {
+            throw new IllegalArgumentException("Table " + name + " is already registered");
+        }
+
+        Table<T> table = new Table<>(this, tables.size(), name, query, codec);
+        tables.put(name, table);
+        return table;
+    }
+
+    /**
+     * Publishes rows of the valid snapshot and starts its revalidation,
+     * otherwise loads rows from the database and writes the snapshot
+     *
+     * @return origin of published rows
+     * @throws IOException if the snapshot can not be written
+     */
+    public synchronized Origin start() throws SQLException, IOException {
+        if (state != null) {
+            throw new IllegalStateException("Warm start is already started");
+        }
+
+        State snapshot = read();
+        if (snapshot != null) {
+            state = snapshot;
+            state.revalidation = revalidate();
+            return Origin.SNAPSHOT;
+        }
+
+        State loaded = load();
+        write(loaded);
+        state = loaded;
+        return Origin.DATABASE;
+    }
+
+    /**
+     * Compares version of published rows with the version of the database
+     * in background and reloads rows if they differ
+     * <br>
+     * Fails if the database is not available or if the snapshot can not
+     * be written, in the latter case reloaded rows are published anyway
+     *
+     * @return true if rows were reloaded
+     */
+    public CompletableFuture<Boolean> revalidate() {
+        if (state == null) {
+            throw new IllegalStateException("Warm start is not started");
+        }
+
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return refresh();
+            } catch (SQLException | IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * @return revalidation started by {@link WarmStart#start()}, which
+     * is completed with false if rows were loaded from the database
+     */
+    public CompletableFuture<Boolean> revalidation() {
+        State current = state;
+        if (current == null) {
+            throw new IllegalStateException("Warm start is not started");
+        }
+        return current.revalidation;
+    }
+
+    /**
+     * @return version of published rows, null if the version query
+     *         returned null, e.g. {@code max} of the empty table
+     */
+    public String version() {
+        State current = state;
+        if (current == null) {
+            throw new IllegalStateException("Warm start is not started");
+        }
+        return current.version;
+    }
+
+    // Ревалидации выполняются по одной, чтобы не загружать таблицы
+    // несколько раз и не писать снимок одновременно
+    private synchronized boolean refresh() throws SQLException, IOException {
+        String actual = version.execute(dataSource);
+        if (Objects.equals(actual, state.version)) {
+            return false;
+        }
+
+        State loaded = load();
+        loaded.revalidation = state.revalidation;
+        state = loaded;
+        write(loaded);
+        return true;
+    }
+
+    private State load() throws SQLException {
+        List<Query<?>> queries = new ArrayList<>();
+        queries.add(version);
+        tables.values().forEach(table -> queries.add(table.query));
+
+        List<Object> results;
+        try (Connection connection = dataSource.getConnection()) {
+            int isolation = connection.getTransactionIsolation();
+            boolean autoCommit = connection.getAutoCommit();
+            Exception failure = null;
+            try {
+                connection.setAutoCommit(false);
+                // На READ COMMITTED каждый запрос видит свой снимок, и строки могли бы разойтись с версией
+                connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+                JdbcSession jdbcSession = new JdbcSession(
+                        new StaticSource(GuardedConnection.guard(connection, null))
+                ).autocommit(false);
+                results = new Query.Sequence<Object>(queries).prepare(jdbcSession).execute();
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                failure = e;
+                try {
+                    connection.rollback();
+                } catch (SQLException rollback) {
+                    e.addSuppressed(rollback);
+                }
+                throw e;
+            } finally {
+                // Соединение возвращается в пул в исходном состоянии и после ошибки
+                try {
+                    connection.setTransactionIsolation(isolation);
+                    connection.setAutoCommit(autoCommit);
+                } catch (SQLException e) {
+                    if (failure == null) {
+                        throw e;
+                    }
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        List<List<?>> rows = new ArrayList<>();
+        for (int i = 1; i < results.size(); i++) {
+            rows.add(Collections.unmodifiableList((List<?>) results.get(i)));
+        }
+        return new State((String) results.get(0), rows, CompletableFuture.completedFuture(false));
+    }
+
+    /**
+     * @return rows of the snapshot or null if it is absent or invalid
+     */
+    private State read() {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                return null;
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT
+                    || buffer.getLong(8) != buffer.capacity() - HEADER_SIZE) {
+                return null;
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(HEADER_SIZE, buffer.capacity() - HEADER_SIZE));
+            if (crc.getValue() != buffer.getLong(16)) {
+                return null;
+            }
+
+            buffer.position(HEADER_SIZE);
+            DataInputStream input = new DataInputStream(new BufferInput(buffer));
+
+            String version = readString(input);
+            if (input.readInt() != tables.size()) {
+                return null;
+            }
+
+            List<List<?>> rows = new ArrayList<>();
+            for (Table<?> table : tables.values()) {
+                if (!table.name.equals(readString(input)) || !table.query.sql().equals(readString(input))) {
+                    return null;
+                }
+                List<?> decoded = table.decode(input, buffer);
+                if (decoded == null) {
+                    return null;
+                }
+                rows.add(decoded);
+            }
+            return new State(version, rows, null);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            // Повреждённый или несовместимый снимок не мешает старту,
+            // таблицы просто загружаются из базы
+            return null;
+        }
+    }
+
+    private void write(State state) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        writeString(output, state.version);
+        output.writeInt(tables.size());
+        for (Table<?> table : tables.values()) {
+            writeString(output, table.name);
+            writeString(output, table.query.sql());
+            table.encode(state.rows.get(table.index), output);
+        }
+        output.flush();
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+
+        // Снимок пишется во временный файл и атомарно заменяет старый,
+        // поэтому после сбоя на диске остаётся один из целых снимков
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream header = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            header.writeInt(MAGIC);
+            header.writeInt(FORMAT);
+            header.writeLong(bytes.size());
+            header.writeLong(crc.getValue());
+            bytes.writeTo(header);
+            header.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        if (value == null) {
+            output.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        int length = input.readInt();
+        return length < 0 ? null : new String(input.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    private static final class State {
+
+        private final String version;
+        private final List<List<?>> rows;
+        private volatile CompletableFuture<Boolean> revalidation;
+
+        private State(String version, List<List<?>> rows, CompletableFuture<Boolean> revalidation) {
+            this.version = version;
+            this.rows = rows;
+            this.revalidation = revalidation;
+        }
+    }
+
+    /**
+     * Stream of the mapped snapshot without copying it to the heap
+     */
+    private static final class BufferInput extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private BufferInput(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+    }
+
+    /**
+     * Reference table registered by {@link WarmStart#register(String, JdbcQuery, RowCodec)}
+     *
+     * @param <T> row type
+     */
+    public static final class Table<T> {
+
+        private final WarmStart owner;
+        private final int index;
+        private final String name;
+        private final JdbcQuery<List<T>> query;
+        private final RowCodec<T> codec;
+
+        private Table(WarmStart owner, int index, String name, JdbcQuery<List<T>> query, RowCodec<T> codec) {
+            this.owner = owner;
+            this.index = index;
+            this.name = name;
+            this.query = query;
+            this.codec = codec;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        /**
+         * @return unmodifiable rows of the last published version
+         */
+        @SuppressWarnings("unchecked")
+        public List<T> rows() {
+            State state = owner.state;
+            if (state == null) {
+                throw new IllegalStateException("Warm start is not started");
+            }
+            return (List<T>) state.rows.get(index);
+        }
+
+        @SuppressWarnings("unchecked")
+        private void encode(List<?> rows, DataOutputStream output) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream encoder = new DataOutputStream(bytes);
+
+            output.writeInt(rows.size());
+            for (Object row : rows) {
+                bytes.reset();
+                codec.write((T) row, encoder);
+                encoder.flush();
+
+                output.writeInt(bytes.size());
+                bytes.writeTo(output);
+            }
+        }
+
+        /**
+         * @return decoded rows or null if the codec does not
+         * read exactly the encoded length of some row
+         */
+        private List<T> decode(DataInputStream input, ByteBuffer buffer) throws IOException {
+            int size = input.readInt();
+            List<T> rows = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                int length = input.readInt();
+                int end = buffer.position() + length;
+                rows.add(codec.read(input));
+                if (buffer.position() != end) {
+                    return null;
+                }
+            }
+            return Collections.unmodifiableList(rows);
+        }
+    }
+}
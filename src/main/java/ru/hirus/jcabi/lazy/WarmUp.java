@@ -0,0 +1,190 @@
+package ru.hirus.jcabi.lazy;
+
+import com.jcabi.jdbc.JdbcSession;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry of {@link JdbcQuery} templates that are prepared
+ * on the pooled connections before the application starts
+ * serving requests
+ * <br>
+ * Warm-up consists of two phases:
+ * <ol>
+ *     <li>each registered statement is prepared and described on every
+ *     connection, which validates SQL and count of its parameters on each
+ *     of them and leaves the parsed query in the statement cache
+ *     of the driver, e.g. {@code preparedStatementCacheQueries} of PgJDBC</li>
+ *     <li>queries registered with representative executions are executed
+ *     in transactions that are rolled back, which warms up the code
+ *     of their outcomes</li>
+ * </ol>
+ * Describing does not create the named server-side statement. PgJDBC
+ * creates it only after {@code prepareThreshold} executions of the statement
+ * on the same connection, and representative executions take any
+ * connection of the pool, so the server-side prepare is not guaranteed
+ * to outlive the warm-up
+ * <br>
+ * <b>This class is thread safe</b>
+ */
+public final class WarmUp {
+
+    private final Map<String, Template> templates;
+
+    public WarmUp() {
+        this.templates = new LinkedHashMap<>();
+    }
+
+    /**
+     * Registers query, which statement will be prepared during the warm-up
+     *
+     * @return this registry
+     */
+    public WarmUp register(JdbcQuery<?> query) {
+        return register(query, 0);
+    }
+
+    /**
+     * Registers query, which statement will be prepared during the warm-up
+     * and which will be executed provided amount of times. Every
+     * execution is rolled back, so the query may modify data
+     *
+     * @param executions count of representative executions
+     * @return this registry
+     */
+    public synchronized WarmUp register(JdbcQuery<?> query, int executions) {
+        if (executions < 0) {
+            throw new IllegalArgumentException("executions must not be negative");
+        }
+
+        Template template = templates.get(query.sql());
+        if (template == null || template.executions() < executions) {
+            templates.put(query.sql(), new Template(query, executions));
+        }
+        return this;
+    }
+
+    /**
+     * Warms up registered queries
+     *
+     * @param connections count of connections to prepare statements on,
+     *                    usually the size of the connection pool. These
+     *                    connections are held simultaneously, so the pool
+     *                    has to hand out different ones
+     * @return report of the warm-up
+     */
+    public Report run(DataSource dataSource, int connections) throws SQLException {
+        List<Template> templates;
+        synchronized (this) {
+            templates = new ArrayList<>(this.templates.values());
+        }
+
+        long start = System.nanoTime();
+        List<Failure> failures = new ArrayList<>();
+
+        List<Connection> held = new ArrayList<>();
+        try {
+            for (int i = 0; i < connections; i++) {
+                held.add(dataSource.getConnection());
+            }
+
+            for (int i = 0; i < held.size(); i++) {
+                for (Template template : templates) {
+                    try {
+                        describe(held.get(i), template.query());
+                    } catch (SQLException e) {
+                        // Соединения могут отличаться, например search_path,
+                        // поэтому ошибка каждого из них сообщается отдельно
+                        e.addSuppressed(template.query().origin());
+                        failures.add(new Failure(template.query().sql(), i, e));
+                    }
+                }
+            }
+        } finally {
+            for (Connection connection : held) {
+                connection.close();
+            }
+        }
+
+        int executions = 0;
+        for (Template template : templates) {
+            for (int i = 0; i < template.executions(); i++) {
+                try {
+                    execute(dataSource, template.query());
+                    executions++;
+                } catch (SQLException e) {
+                    e.addSuppressed(template.query().origin());
+                    failures.add(new Failure(template.query().sql(), -1, e));
+                    break;
+                }
+            }
+        }
+
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        return new Report(elapsed, held.size(), templates.size(), executions, failures);
+    }
+
+    private static void describe(Connection connection, JdbcQuery<?> query) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(query.sql())) {
+            int expected = query.argumentCount();
+            int actual = statement.getParameterMetaData().getParameterCount();
+            if (expected >= 0 && expected != actual) {
+                throw new SQLException("Query has " + actual + " parameters, but "
+                        + expected + " arguments are bound");
+            }
+        }
+    }
+
+    private static void execute(DataSource dataSource, JdbcQuery<?> query) throws SQLException {
+        JdbcSession jdbcSession = new JdbcSession(dataSource).autocommit(false);
+        query.prepare(jdbcSession).execute();
+        jdbcSession.rollback();
+    }
+
+    private record Template(JdbcQuery<?> query, int executions) {
+    }
+
+    /**
+     * Query that failed the warm-up
+     *
+     * @param sql        SQL of the query
+     * @param connection index of the connection the statement failed to be
+     *                   described on, or -1 if the execution failed
+     * @param cause      reason of the failure
+     */
+    public record Failure(String sql, int connection, SQLException cause) {
+    }
+
+    /**
+     * Result of {@link WarmUp#run(DataSource, int)}
+     *
+     * @param elapsed     time spent on the warm-up
+     * @param connections count of connections statements were prepared on
+     * @param statements  count of distinct registered statements
+     * @param executions  count of successful representative executions
+     * @param failures    queries that failed validation on each connection
+     *                    or execution
+     */
+    public record Report(Duration elapsed, int connections, int statements, int executions,
+                         List<Failure> failures) {
+
+        public boolean successful() {
+            return failures.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return "Warm-up of " + statements + " statements on " + connections + " connections with "
+                    + executions + " executions took " + elapsed.toMillis() + " ms, "
+                    + failures.size() + " failures";
+        }
+    }
+}
@@ -0,0 +1,815 @@
+package ru.hirus.jcabi.lazy;
+
+import com.jcabi.jdbc.JdbcSession;
+import com.jcabi.jdbc.Outcome;
+import com.jcabi.jdbc.StaticSource;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.sql.Savepoint;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Queue of write queries that are acknowledged as soon as they are
+ * appended to the local log and are executed later in background batches
+ * <br>
+ * The log is a memory-mapped ring file of the fixed capacity, so appended
+ * queries survive the crash of the process, and the unflushed part of the
+ * log is executed again after the restart. It does not survive the crash
+ * of the operating system until the log is forced to the disk, which is
+ * done after every batch and on {@link WriteBehind#close()}
+ * <br>
+ * Only {@link JdbcQuery#insert()} and {@link JdbcQuery#update()} queries without
+ * custom preparations are accepted, because their SQL and arguments are
+ * all that is needed to execute them again. Their results are discarded
+ * <br>
+ * Every query of the batch is executed after its own savepoint, so the
+ * failure of one query is passed to the listener and does not fail others.
+ * If the batch can not be committed, e.g. because of a deferred constraint,
+ * it is split in halves and retried after the interval. The single query
+ * that still fails {@value WriteBehind#MAX_ATTEMPTS} times is dropped and passed
+ * to the listener as well, unless the failure is transient, like the lost
+ * connection, which is retried until the database is back.
+ * The batch committed right before the crash may be executed again,
+ * so queries must tolerate repetition, e.g. by {@code ON CONFLICT DO NOTHING}
+ * <br>
+ * <b>This class is thread safe</b>
+ */
+public final class WriteBehind implements AutoCloseable {
+
+    private static final int MAGIC = 0x4A57424C;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int HEAD_OFFSET = 16;
+
+    /**
+     * Length, checksum and logical position of the record
+     */
+    private static final int RECORD_HEADER_SIZE = 16;
+    private static final int WRAP = -1;
+
+    /**
+     * Attempts to commit the single query before it is dropped
+     */
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final byte INSERT = 1;
+    private static final byte UPDATE = 2;
+
+    private static final byte NULL = 0;
+    private static final byte LONG = 1;
+    private static final byte INT = 2;
+    private static final byte BOOLEAN = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte FLOAT = 5;
+    private static final byte STRING = 6;
+    private static final byte TIMESTAMP = 7;
+    private static final byte BYTES = 8;
+    private static final byte DECIMAL = 9;
+
+    private final DataSource dataSource;
+    private final int maxBatch;
+    private final long interval;
+    private final Consumer<Failure> failures;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer log;
+    private final long capacity;
+
+    private final ReentrantLock lock;
+    private final Condition appended;
+    private final Condition flushed;
+    private final Thread worker;
+    private volatile boolean closed;
+
+    /**
+     * Logical positions of the first unflushed record and of the end of
+     * the last record, they only grow and are mapped to the file modulo
+     * the capacity
+     */
+    private long head;
+    private long tail;
+
+    /**
+     * Position up to which dropped queries are passed to the listener,
+     * it follows the head, and {@link WriteBehind#flush(Duration)} waits for it
+     */
+    private long reported;
+    private long backlog;
+    private long executed;
+    private long failed;
+    private long retries;
+    private Connection connection;
+
+    /**
+     * Max count of queries in the next batch, it is reduced after failures
+     * to find the query that fails the commit. Used only by the worker
+     */
+    private int limit;
+    private int attempts;
+
+    /**
+     * Opens the log or creates it if it does not exist, and starts
+     * the execution of queries left in it
+     *
+     * @param log      path of the log file
+     * @param capacity size of the log in bytes, appending waits when
+     *                 unflushed queries take all of it
+     * @param maxBatch max count of queries committed together
+     * @param interval time to wait for more queries after the batch
+     *                 and before the retry of the failed batch
+     * @param failures consumer of queries that failed and were dropped.
+     *                 It is called by the background thread after they
+     *                 are removed from the log, and its exceptions are
+     *                 passed to the handler of uncaught exceptions
+     * @throws IOException if the log can not be opened or it was created
+     *                     with another capacity
+     */
+    public WriteBehind(DataSource dataSource, Path log, long capacity, int maxBatch, Duration interval,
+                       Consumer<Failure> failures) throws IOException {
+        if (capacity < RECORD_HEADER_SIZE * 4 || capacity > Integer.MAX_VALUE - HEADER_SIZE) {
+            throw new IllegalArgumentException("capacity must be from " + RECORD_HEADER_SIZE * 4
+                    + " to " + (Integer.MAX_VALUE - HEADER_SIZE) + " bytes");
+        }
+        if (maxBatch < 1) {
+            throw new IllegalArgumentException("maxBatch must be positive");
+        }
+
+        this.dataSource = dataSource;
+        this.maxBatch = maxBatch;
+        this.limit = maxBatch;
+        this.interval = interval.toNanos();
+        this.failures = failures;
+        this.capacity = capacity & ~7L;
+
+        this.channel = FileChannel.open(log, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            boolean created = channel.size() == 0;
+            if (!created && channel.size() != HEADER_SIZE + this.capacity) {
+                throw new IOException("Log " + log + " has capacity " + (channel.size() - HEADER_SIZE)
+                        + " bytes, but " + this.capacity + " bytes are requested");
+            }
+            this.log = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + this.capacity);
+            if (created) {
+                this.log.putInt(0, MAGIC);
+                this.log.putInt(4, VERSION);
+                this.log.putLong(8, this.capacity);
+                this.log.putLong(HEAD_OFFSET, 0);
+            } else if (this.log.getInt(0) != MAGIC || this.log.getInt(4) != VERSION) {
+                throw new IOException("File " + log + " is not the write-behind log of version " + VERSION);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+
+        this.head = this.log.getLong(HEAD_OFFSET);
+        this.reported = head;
+        recover();
+
+        this.lock = new ReentrantLock();
+        this.appended = lock.newCondition();
+        this.flushed = lock.newCondition();
+
+        this.worker = new Thread(this::work, "write-behind");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Appends query to the log, waiting while the log is full
+     *
+     * @throws IllegalArgumentException if the query is not accepted
+     *                                  or does not fit the log
+     * @throws SQLException             if the queue is closed, its worker
+     *                                  has stopped or the wait is interrupted
+     */
+    public void submit(JdbcQuery<?> query) throws SQLException {
+        if (!append(encode(query), Long.MAX_VALUE)) {
+            throw new SQLException("Write-behind log is full");
+        }
+    }
+
+    /**
+     * Appends query to the log, waiting while the log is full
+     * no longer than the timeout
+     *
+     * @return false if the log is still full after the timeout
+     * @throws IllegalArgumentException if the query is not accepted
+     *                                  or does not fit the log
+     * @throws SQLException             if the queue is closed or the wait
+     *                                  is interrupted
+     */
+    public boolean offer(JdbcQuery<?> query, Duration timeout) throws SQLException {
+        return append(encode(query), timeout.toNanos());
+    }
+
+    /**
+     * Waits until all queries appended before the call are executed
+     * or dropped by failures
+     *
+     * @return false if some of them are still in the log after the timeout
+     */
+    public boolean flush(Duration timeout) throws SQLException {
+        long nanos = timeout.toNanos();
+        lock.lock();
+        try {
+            long target = tail;
+            while (reported < target) {
+                if (!worker.isAlive()) {
+                    if (closed) {
+                        return false;
+                    }
+                    throw new SQLException("Write-behind worker has stopped");
+                }
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = flushed.awaitNanos(nanos);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Metrics metrics() {
+        lock.lock();
+        try {
+            return new Metrics(backlog, tail - head, executed, failed, retries);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting queries, executes queries left in the log
+     * until the first failed batch and closes the log. Queries that
+     * are not executed stay in the log until the next start
+     */
+    @Override
+    public void close() throws SQLException {
+        lock.lock();
+        try {
+            closed = true;
+            appended.signalAll();
+            flushed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            log.force();
+            channel.close();
+        } catch (IOException e) {
+            throw new SQLException("Failed to close write-behind log", e);
+        } finally {
+            if (connection != null) {
+                connection.close();
+                connection = null;
+            }
+        }
+    }
+
+    private boolean append(byte[] payload, long nanos) throws SQLException {
+        int size = align(RECORD_HEADER_SIZE + payload.length);
+        if (size > capacity / 2) {
+            throw new IllegalArgumentException("Query takes " + size + " bytes, but at most "
+                    + capacity / 2 + " bytes fit the log");
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        lock.lock();
+        try {
+            while (true) {
+                if (closed) {
+                    throw new SQLException("Write-behind queue is closed");
+                }
+                if (!worker.isAlive()) {
+                    throw new SQLException("Write-behind worker has stopped");
+                }
+
+                long waste = capacity - tail % capacity < size ? capacity - tail % capacity : 0;
+                if (tail + waste + size - head <= capacity) {
+                    if (waste >= RECORD_HEADER_SIZE) {
+                        writeHeader(tail, WRAP, 0);
+                    }
+                    tail += waste;
+
+                    // Длина пишется последней, поэтому недописанная запись не считается записанной
+                    int offset = offset(tail);
+                    log.put(offset + RECORD_HEADER_SIZE, payload);
+                    writeHeader(tail, payload.length, (int) crc.getValue());
+                    tail += size;
+                    backlog++;
+                    appended.signal();
+                    return true;
+                }
+
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = flushed.awaitNanos(nanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeHeader(long position, int length, int crc) {
+        int offset = offset(position);
+        log.putLong(offset + 8, position);
+        log.putInt(offset + 4, crc);
+        log.putInt(offset, length);
+    }
+
+    /**
+     * Finds the end of the last whole record after the head
+     */
+    private void recover() {
+        long position = head;
+        while (position - head < capacity) {
+            long left = capacity - position % capacity;
+            if (left < RECORD_HEADER_SIZE) {
+                position += left;
+                continue;
+            }
+
+            int offset = offset(position);
+            int length = log.getInt(offset);
+            if (log.getLong(offset + 8) != position) {
+                break;
+            }
+            if (length == WRAP) {
+                position += left;
+                continue;
+            }
+
+            int size = align(RECORD_HEADER_SIZE + Math.max(length, 0));
+            if (length <= 0 || size > left || position + size - head > capacity) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            log.get(offset + RECORD_HEADER_SIZE, payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != log.getInt(offset + 4)) {
+                break;
+            }
+
+            position += size;
+            tail = position;
+            backlog++;
+        }
+        tail = Math.max(tail, head);
+    }
+
+    private void work() {
+        try {
+            while (true) {
+                try {
+                    if (!step()) {
+                        return;
+                    }
+                } catch (Throwable e) {
+                    // Поток единственный, поэтому он переживает любую ошибку и повторяет пакет
+                    uncaught(e);
+                    reset();
+                    pause();
+                }
+            }
+        } finally {
+            lock.lock();
+            try {
+                appended.signalAll();
+                flushed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Executes the next batch
+     *
+     * @return false if the worker has to stop
+     */
+    private boolean step() {
+        List<Entry> batch;
+        lock.lock();
+        try {
+            while (head == tail && !closed) {
+                appended.await();
+            }
+            if (head == tail) {
+                return false;
+            }
+            batch = read();
+        } catch (InterruptedException e) {
+            return false;
+        } finally {
+            lock.unlock();
+        }
+
+        List<Failure> dropped = new ArrayList<>();
+        SQLException failure = execute(batch, dropped);
+        if (failure != null) {
+            if (closed) {
+                return false;
+            }
+            if (batch.size() > 1) {
+                // Делим пакет, пока запись, которая ломает коммит, не останется одна
+                limit = batch.size() / 2;
+            } else if (!isTransient(failure) && ++attempts >= MAX_ATTEMPTS) {
+                drop(batch.get(0), failure);
+                return true;
+            }
+            pause();
+            return true;
+        }
+
+        boolean full = batch.size() >= limit;
+        attempts = 0;
+        limit = (int) Math.min(maxBatch, limit * 2L);
+        long end = batch.get(batch.size() - 1).end();
+        lock.lock();
+        try {
+            head = end;
+            log.putLong(HEAD_OFFSET, head);
+            backlog -= batch.size();
+            executed += batch.size() - dropped.size();
+            failed += dropped.size();
+            flushed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        // Слушатель вызывается после сдвига головы, поэтому его ошибка не повторяет пакет
+        dropped.forEach(this::report);
+        reported(end);
+
+        if (!full && !closed) {
+            pause();
+        }
+        return true;
+    }
+
+    /**
+     * Passes the dropped query to the listener, its failure does not
+     * stop the worker and is passed to the handler of uncaught exceptions
+     */
+    private void report(Failure failure) {
+        try {
+            failures.accept(failure);
+        } catch (RuntimeException e) {
+            uncaught(e);
+        }
+    }
+
+    private static void uncaught(Throwable e) {
+        Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+    }
+
+    /**
+     * Waits for more queries or for the close
+     */
+    private void pause() {
+        lock.lock();
+        try {
+            long nanos = interval;
+            while (nanos > 0 && !closed) {
+                nanos = appended.awaitNanos(nanos);
+                if (tail - head > capacity / 2) {
+                    // Лог заполняется быстрее, чем пишется, поэтому ждать нечего
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops the record that fails the commit and passes it to the listener
+     */
+    private void drop(Entry entry, SQLException failure) {
+        Failure dropped;
+        try {
+            JdbcQuery<?> query = decode(entry.payload());
+            dropped = new Failure(query.sql(), query.arguments(), failure);
+        } catch (IOException e) {
+            dropped = new Failure(null, List.of(), failure);
+        }
+
+        attempts = 0;
+        limit = maxBatch;
+        lock.lock();
+        try {
+            head = entry.end();
+            log.putLong(HEAD_OFFSET, head);
+            log.force();
+            backlog--;
+            failed++;
+            flushed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        report(dropped);
+        reported(entry.end());
+    }
+
+    private void reported(long position) {
+        lock.lock();
+        try {
+            reported = position;
+            flushed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return true if the failure is caused by the connection or the state
+     *         of the database and the same query may succeed later
+     */
+    private static boolean isTransient(SQLException e) {
+        return e instanceof SQLTransientException || e instanceof SQLRecoverableException
+                || e.getSQLState() != null && e.getSQLState().startsWith("08");
+    }
+
+    /**
+     * @return up to {@link WriteBehind#limit} records after the head
+     */
+    private List<Entry> read() {
+        List<Entry> batch = new ArrayList<>();
+        long position = head;
+        while (position < tail && batch.size() < limit) {
+            long left = capacity - position % capacity;
+            int offset = offset(position);
+            if (left < RECORD_HEADER_SIZE || log.getInt(offset) == WRAP) {
+                position += left;
+                continue;
+            }
+
+            int length = log.getInt(offset);
+            byte[] payload = new byte[length];
+            log.get(offset + RECORD_HEADER_SIZE, payload);
+            position += align(RECORD_HEADER_SIZE + length);
+            batch.add(new Entry(payload, position));
+        }
+        return batch;
+    }
+
+    /**
+     * Executes the batch in one transaction
+     *
+     * @param dropped queries that failed and were rolled back to their savepoints
+     * @return failure of the transaction or null if it is committed
+     */
+    private SQLException execute(List<Entry> batch, List<Failure> dropped) {
+        try {
+            if (connection == null || connection.isClosed()) {
+                connection = dataSource.getConnection();
+                connection.setAutoCommit(false);
+            }
+
+            for (Entry entry : batch) {
+                JdbcQuery<?> query;
+                try {
+                    query = decode(entry.payload());
+                } catch (IOException e) {
+                    dropped.add(new Failure(null, List.of(), new SQLException("Corrupted record", e)));
+                    continue;
+                }
+
+                Savepoint savepoint = connection.setSavepoint();
+                JdbcSession jdbcSession = new JdbcSession(
+                        new StaticSource(GuardedConnection.guard(connection, savepoint))
+                ).autocommit(false);
+                try (SessionScope ignored = SessionScope.enter(jdbcSession)) {
+                    query.prepare(jdbcSession).execute();
+                } catch (SQLException | RuntimeException e) {
+                    connection.rollback(savepoint);
+                    dropped.add(new Failure(query.sql(), query.arguments(), wrap(e)));
+                    continue;
+                }
+                connection.releaseSavepoint(savepoint);
+            }
+
+            connection.commit();
+            log.force();
+        } catch (Throwable e) {
+            // Error запроса, например StackOverflowError, тоже не должен
+            // останавливать поток, а пакет с ним делится как при сбое коммита
+            reset();
+            dropped.clear();
+            lock.lock();
+            try {
+                retries++;
+            } finally {
+                lock.unlock();
+            }
+            return wrap(e);
+        }
+        return null;
+    }
+
+    private static SQLException wrap(Throwable e) {
+        return e instanceof SQLException sqlException ? sqlException : new SQLException(e);
+    }
+
+    private void reset() {
+        if (connection == null) {
+            return;
+        }
+
+        try {
+            connection.rollback();
+            connection.close();
+        } catch (SQLException ignored) {
+            // Соединение уже сломано, его ошибка не важнее исходной
+        } finally {
+            connection = null;
+        }
+    }
+
+    private int offset(long position) {
+        return HEADER_SIZE + (int) (position % capacity);
+    }
+
+    private static int align(int size) {
+        return (size + 7) & ~7;
+    }
+
+    private static byte[] encode(JdbcQuery<?> query) {
+        byte kind = switch (query.kind()) {
+            case INSERT -> INSERT;
+            case UPDATE -> UPDATE;
+            default -> throw new IllegalArgumentException("Only insert and update queries are supported");
+        };
+        if (query.argumentCount() < 0) {
+            throw new IllegalArgumentException("Queries with custom preparations are not supported");
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeByte(kind);
+            writeString(output, query.sql());
+
+            List<Object> arguments = query.arguments();
+            output.writeInt(arguments.size());
+            for (Object argument : arguments) {
+                writeArgument(output, argument);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeArgument(DataOutputStream output, Object argument) throws IOException {
+        if (argument == null) {
+            output.writeByte(NULL);
+        } else if (argument instanceof Long value) {
+            output.writeByte(LONG);
+            output.writeLong(value);
+        } else if (argument instanceof Integer value) {
+            output.writeByte(INT);
+            output.writeInt(value);
+        } else if (argument instanceof Boolean value) {
+            output.writeByte(BOOLEAN);
+            output.writeBoolean(value);
+        } else if (argument instanceof Double value) {
+            output.writeByte(DOUBLE);
+            output.writeDouble(value);
+        } else if (argument instanceof Float value) {
+            output.writeByte(FLOAT);
+            output.writeFloat(value);
+        } else if (argument instanceof String value) {
+            output.writeByte(STRING);
+            writeString(output, value);
+        } else if (argument instanceof java.util.Date value) {
+            output.writeByte(TIMESTAMP);
+            output.writeLong(value.getTime());
+            output.writeInt(value instanceof Timestamp timestamp ? timestamp.getNanos() : -1);
+        } else if (argument instanceof byte[] value) {
+            output.writeByte(BYTES);
+            output.writeInt(value.length);
+            output.write(value);
+        } else if (argument instanceof BigDecimal value) {
+            output.writeByte(DECIMAL);
+            writeString(output, value.toString());
+        } else {
+            throw new IllegalArgumentException("Argument of " + argument.getClass() + " can not be written to the log");
+        }
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static JdbcQuery<?> decode(byte[] payload) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload));
+        byte kind = input.readByte();
+        JdbcQuery.Builder builder = (kind == INSERT ? Query.insert() : Query.update()).sql(readString(input));
+
+        int count = input.readInt();
+        for (int i = 0; i < count; i++) {
+            // Типизированные сеттеры дают ту же привязку, что была при первом выполнении
+            switch (input.readByte()) {
+                case NULL -> builder.set((Object) null);
+                case LONG -> builder.setLong(input.readLong());
+                case INT -> builder.setInt(input.readInt());
+                case BOOLEAN -> builder.set(input.readBoolean());
+                case DOUBLE -> builder.set(input.readDouble());
+                case FLOAT -> builder.set(input.readFloat());
+                case STRING -> builder.setString(readString(input));
+                case TIMESTAMP -> {
+                    Timestamp timestamp = new Timestamp(input.readLong());
+                    int nanos = input.readInt();
+                    if (nanos >= 0) {
+                        timestamp.setNanos(nanos);
+                    }
+                    builder.setTimestamp(timestamp);
+                }
+                case BYTES -> {
+                    byte[] bytes = new byte[input.readInt()];
+                    input.readFully(bytes);
+                    builder.set((Object) bytes);
+                }
+                case DECIMAL -> builder.set(new BigDecimal(readString(input)));
+                default -> throw new IOException("Unknown argument type");
+            }
+        }
+        return builder.build(Outcome.VOID);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Query dropped from the log, because it failed
+     *
+     * @param sql       SQL of the query or null if the record is corrupted
+     * @param arguments arguments of the query
+     * @param exception failure of the query
+     */
+    public record Failure(String sql, List<Object> arguments, SQLException exception) {
+    }
+
+    /**
+     * @param backlog  count of queries in the log
+     * @param bytes    bytes of the log taken by them
+     * @param executed count of committed queries
+     * @param failed   count of queries dropped by failures
+     * @param retries  count of batches that failed to commit and were retried
+     */
+    public record Metrics(long backlog, long bytes, long executed, long failed, long retries) {
+    }
+
+    private record Entry(byte[] payload, long end) {
+    }
+}
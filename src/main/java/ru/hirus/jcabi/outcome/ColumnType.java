@@ -0,0 +1,45 @@
+package ru.hirus.jcabi.outcome;
+
+import java.sql.Types;
+
+/**
+ * Type of the column stored by {@link ColumnarOutcome}
+ */
+public enum ColumnType {
+    /**
+     * Integer types, stored as 8 bytes
+     */
+    LONG,
+    /**
+     * Floating point types, stored as 8 bytes
+     */
+    DOUBLE,
+    /**
+     * Boolean types, stored as 1 byte
+     */
+    BOOLEAN,
+    /**
+     * All other types, stored as UTF-8 text of
+     * {@link java.sql.ResultSet#getString(int)}
+     */
+    STRING;
+
+    static ColumnType of(int sqlType) {
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+                return LONG;
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return DOUBLE;
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return BOOLEAN;
+            default:
+                return STRING;
+        }
+    }
+}
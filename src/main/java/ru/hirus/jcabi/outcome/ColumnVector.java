@@ -0,0 +1,133 @@
+package ru.hirus.jcabi.outcome;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Off-heap values of one column
+ * <br>
+ * Fixed-width values are stored one after another, text values are
+ * stored as UTF-8 bytes with the end offset of every value. Nulls are
+ * marked in the bitmap, one bit per row
+ */
+final class ColumnVector {
+
+    private final String name;
+    private final ColumnType type;
+    private final OffHeapBuffer nulls;
+    private final OffHeapBuffer values;
+    private final OffHeapBuffer text;
+    private long rows;
+
+    ColumnVector(String name, ColumnType type, int chunkSize) {
+        this.name = name;
+        this.type = type;
+        this.nulls = new OffHeapBuffer(chunkSize);
+        this.values = new OffHeapBuffer(chunkSize);
+        this.text = type == ColumnType.STRING ? new OffHeapBuffer(chunkSize) : null;
+    }
+
+    String name() {
+        return name;
+    }
+
+    ColumnType type() {
+        return type;
+    }
+
+    /**
+     * Appends value of the column from the current row
+     *
+     * @param index index of the column in the result set
+     */
+    void read(ResultSet resultSet, int index) throws SQLException {
+        if (rows % Byte.SIZE == 0) {
+            nulls.putByte((byte) 0);
+        }
+
+        switch (type) {
+            case LONG -> values.putLong(resultSet.getLong(index));
+            case DOUBLE -> values.putLong(Double.doubleToRawLongBits(resultSet.getDouble(index)));
+            case BOOLEAN -> values.putByte((byte) (resultSet.getBoolean(index) ? 1 : 0));
+            case STRING -> {
+                String value = resultSet.getString(index);
+                if (value != null) {
+                    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                    text.put(bytes, bytes.length);
+                }
+                values.putLong(text.size());
+            }
+        }
+
+        if (resultSet.wasNull()) {
+            long position = rows / Byte.SIZE;
+            nulls.setByte(position, (byte) (nulls.getByte(position) | 1 << rows % Byte.SIZE));
+        }
+        rows++;
+    }
+
+    boolean isNull(long row) {
+        return (nulls.getByte(row / Byte.SIZE) & 1 << row % Byte.SIZE) != 0;
+    }
+
+    long getLong(long row) {
+        expect(ColumnType.LONG);
+        return values.getLong(row * Long.BYTES);
+    }
+
+    double getDouble(long row) {
+        expect(ColumnType.DOUBLE);
+        return Double.longBitsToDouble(values.getLong(row * Long.BYTES));
+    }
+
+    boolean getBoolean(long row) {
+        expect(ColumnType.BOOLEAN);
+        return values.getByte(row) != 0;
+    }
+
+    /**
+     * @param buffer reusable buffer, a bigger one is returned
+     *               if the value does not fit
+     * @return buffer containing the value in its first {@link #length(long)} bytes
+     */
+    byte[] getBytes(long row, byte[] buffer) {
+        expect(ColumnType.STRING);
+        long start = start(row);
+        int length = (int) (values.getLong(row * Long.BYTES) - start);
+
+        byte[] bytes = buffer.length < length ? new byte[length] : buffer;
+        text.get(start, bytes, length);
+        return bytes;
+    }
+
+    int length(long row) {
+        expect(ColumnType.STRING);
+        return (int) (values.getLong(row * Long.BYTES) - start(row));
+    }
+
+    /**
+     * @return count of off-heap bytes allocated by this column
+     */
+    long capacity() {
+        return nulls.capacity() + values.capacity() + (text == null ? 0 : text.capacity());
+    }
+
+    void release() {
+        nulls.release();
+        values.release();
+        if (text != null) {
+            text.release();
+        }
+    }
+
+    private long start(long row) {
+        return row == 0 ? 0 : values.getLong((row - 1) * Long.BYTES);
+    }
+
+    private void expect(ColumnType expected) {
+        if (type != expected) {
+            throw new IllegalArgumentException("Column " + name + " has type " + type + ", not " + expected);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package ru.hirus.jcabi.outcome;
+
+import com.jcabi.jdbc.Outcome;
+import com.jcabi.jdbc.Preparation;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome that decodes all rows of the result set into
+ * {@link ColumnarResult}, which keeps values outside the heap,
+ * so heap usage does not grow with the size of the result
+ * <br>
+ * It holds only while the driver fetches rows by parts. PostgreSQL
+ * reads the whole result set into the heap unless the fetch size is set
+ * to the statement before the execution and the query is executed
+ * inside the transaction, so the query has to be prepared by
+ * {@link ColumnarOutcome#preparation()}
+ * <br>
+ * The result must be closed by the caller
+ * <br>
+ * <b>This class is immutable</b>
+ */
+public final class ColumnarOutcome implements Outcome<ColumnarResult> {
+
+    private static final int DEFAULT_FETCH_SIZE = 1000;
+    private static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    private final int fetchSize;
+    private final int chunkSize;
+
+    public ColumnarOutcome() {
+        this(DEFAULT_FETCH_SIZE, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param fetchSize count of rows fetched from the database at once
+     *                  or zero to use the default of the driver
+     * @param chunkSize max size of one off-heap buffer in bytes,
+     *                  must be a positive multiple of 8
+     */
+    public ColumnarOutcome(int fetchSize, int chunkSize) {
+        if (fetchSize < 0) {
+            throw new IllegalArgumentException("fetchSize must not be negative");
+        }
+        if (chunkSize <= 0 || chunkSize % Long.BYTES != 0) {
+            throw new IllegalArgumentException("chunkSize must be a positive multiple of 8");
+        }
+        this.fetchSize = fetchSize;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Preparation that sets the fetch size of this outcome to the statement
+     * before its execution
+     *
+     * @see ru.hirus.jcabi.lazy.JdbcQuery.Builder#prepare(Preparation)
+     */
+    public Preparation preparation() {
+        return statement -> {
+            if (fetchSize > 0) {
+                statement.setFetchSize(fetchSize);
+            }
+        };
+    }
+
+    @Override
+    public ColumnarResult handle(ResultSet resultSet, Statement statement) throws SQLException {
+        if (fetchSize > 0) {
+            resultSet.setFetchSize(fetchSize);
+        }
+
+        ResultSetMetaData metaData = resultSet.getMetaData();
+
+        List<ColumnVector> columns = new ArrayList<>();
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            columns.add(new ColumnVector(metaData.getColumnLabel(i), ColumnType.of(metaData.getColumnType(i)), chunkSize));
+        }
+
+        long rows = 0;
+        try {
+            while (resultSet.next()) {
+                for (int i = 0; i < columns.size(); i++) {
+                    columns.get(i).read(resultSet, i + 1);
+                }
+                rows++;
+            }
+        } catch (SQLException | RuntimeException e) {
+            new ColumnarResult(columns, rows).close();
+            throw e;
+        }
+
+        return new ColumnarResult(columns, rows);
+    }
+}
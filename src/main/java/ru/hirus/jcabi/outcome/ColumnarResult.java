@@ -0,0 +1,193 @@
+package ru.hirus.jcabi.outcome;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Result of the query that is stored by columns outside the heap
+ * <br>
+ * The result owns all its off-heap buffers and releases them on
+ * {@link ColumnarResult#close()}, after that the result and its cursors
+ * can not be used
+ * <br>
+ * Columns are numbered from 1, like in {@link java.sql.ResultSet}
+ * <br>
+ * <b>This class is not thread safe</b>
+ */
+public final class ColumnarResult implements AutoCloseable {
+
+    private final List<ColumnVector> columns;
+    private final long rows;
+    private boolean closed;
+
+    ColumnarResult(List<ColumnVector> columns, long rows) {
+        this.columns = columns;
+        this.rows = rows;
+    }
+
+    public long rows() {
+        return rows;
+    }
+
+    public int columns() {
+        return columns.size();
+    }
+
+    public String name(int column) {
+        return vector(column).name();
+    }
+
+    public ColumnType type(int column) {
+        return vector(column).type();
+    }
+
+    /**
+     * @return index of the column with provided name, ignoring case
+     * @throws IllegalArgumentException if there is no such column
+     */
+    public int index(String name) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).name().equalsIgnoreCase(name)) {
+                return i + 1;
+            }
+        }
+        throw new IllegalArgumentException("There is no column " + name);
+    }
+
+    /**
+     * @return count of off-heap bytes allocated by this result
+     */
+    public long capacity() {
+        long capacity = 0;
+        for (ColumnVector column : columns) {
+            capacity += column.capacity();
+        }
+        return capacity;
+    }
+
+    /**
+     * @return new cursor positioned before the first row
+     */
+    public Cursor cursor() {
+        check();
+        return new Cursor();
+    }
+
+    /**
+     * Releases off-heap buffers of this result
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        for (ColumnVector column : columns) {
+            column.release();
+        }
+    }
+
+    private ColumnVector vector(int column) {
+        check();
+        if (column < 1 || column > columns.size()) {
+            throw new IndexOutOfBoundsException("Column " + column + " out of " + columns.size());
+        }
+        return columns.get(column - 1);
+    }
+
+    private void check() {
+        if (closed) {
+            throw new IllegalStateException("Result is closed");
+        }
+    }
+
+    /**
+     * Reads rows of {@link ColumnarResult} one by one
+     * <br>
+     * Typed getters throw {@link IllegalArgumentException}
+     * if the column has another {@link ColumnType}
+     */
+    public final class Cursor {
+
+        private long row;
+        private byte[] buffer;
+
+        private Cursor() {
+            this.row = -1;
+            this.buffer = new byte[64];
+        }
+
+        /**
+         * Moves cursor to the next row
+         *
+         * @return false if there are no rows left
+         */
+        public boolean next() {
+            if (row < rows) {
+                row++;
+            }
+            return row < rows;
+        }
+
+        /**
+         * Moves cursor to provided row, numbered from 0
+         */
+        public void seek(long row) {
+            if (row < 0 || row >= rows) {
+                throw new IndexOutOfBoundsException("Row " + row + " out of " + rows);
+            }
+            this.row = row;
+        }
+
+        public long row() {
+            return row;
+        }
+
+        public boolean isNull(int column) {
+            return vector(column).isNull(current());
+        }
+
+        /**
+         * @return value of {@link ColumnType#LONG} column, 0 if it is null
+         */
+        public long getLong(int column) {
+            return vector(column).getLong(current());
+        }
+
+        /**
+         * @return value of {@link ColumnType#DOUBLE} column, 0 if it is null
+         */
+        public double getDouble(int column) {
+            return vector(column).getDouble(current());
+        }
+
+        /**
+         * @return value of {@link ColumnType#BOOLEAN} column, false if it is null
+         */
+        public boolean getBoolean(int column) {
+            return vector(column).getBoolean(current());
+        }
+
+        /**
+         * @return value of {@link ColumnType#STRING} column or null
+         */
+        public String getString(int column) {
+            ColumnVector vector = vector(column);
+            long current = current();
+            if (vector.isNull(current)) {
+                return null;
+            }
+
+            buffer = vector.getBytes(current, buffer);
+            return new String(buffer, 0, vector.length(current), StandardCharsets.UTF_8);
+        }
+
+        private long current() {
+            if (row < 0 || row >= rows) {
+                throw new IllegalStateException("Cursor is not positioned on a row");
+            }
+            return row;
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package ru.hirus.jcabi.outcome;
+
+import com.jcabi.jdbc.Outcome;
+import com.jcabi.jdbc.Preparation;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Outcome that writes rows of the result set as the JSON array of
+ * objects straight to the stream, without mapping them to objects
+ * <br>
+ * Names of columns are encoded once per query, values are read by
+ * typed getters of the {@link ColumnType} of the column and encoded
+ * as UTF-8 into one buffer, which is written when it is full, so
+ * large results do not allocate memory per row except strings
+ * returned by the driver and the text of floating-point values,
+ * which is formatted by {@link Double#toString(double)}
+ * <br>
+ * The result is the count of written rows. The stream is flushed,
+ * but not closed
+ * <br>
+ * <b>This class is immutable</b>
+ */
+public final class JsonOutcome implements Outcome<Long> {
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final Sink sink;
+    private final int fetchSize;
+    private final int bufferSize;
+
+    public JsonOutcome(OutputStream output) {
+        this(output, 0);
+    }
+
+    /**
+     * @param fetchSize count of rows fetched from the database at once
+     *                  or 0 for the default of the driver
+     */
+    public JsonOutcome(OutputStream output, int fetchSize) {
+        this(new StreamSink(output), fetchSize, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param fetchSize count of rows fetched from the database at once
+     *                  or 0 for the default of the driver
+     */
+    public JsonOutcome(WritableByteChannel channel, int fetchSize) {
+        this(new ChannelSink(channel), fetchSize, DEFAULT_BUFFER_SIZE);
+    }
+
+    private JsonOutcome(Sink sink, int fetchSize, int bufferSize) {
+        if (fetchSize < 0) {
+            throw new IllegalArgumentException("fetchSize must not be negative");
+        }
+
+        this.sink = sink;
+        this.fetchSize = fetchSize;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Preparation that sets the fetch size of this outcome to the statement
+     * before its execution, which is required by drivers that fetch all rows
+     * at once otherwise, e.g. by PostgreSQL. PostgreSQL also fetches rows
+     * partially only inside the transaction
+     *
+     * @see ru.hirus.jcabi.lazy.JdbcQuery.Builder#prepare(Preparation)
+     */
+    public Preparation preparation() {
+        return statement -> {
+            if (fetchSize > 0) {
+                statement.setFetchSize(fetchSize);
+            }
+        };
+    }
+
+    @Override
+    public Long handle(ResultSet resultSet, Statement statement) throws SQLException {
+        if (fetchSize > 0) {
+            resultSet.setFetchSize(fetchSize);
+        }
+
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int count = metaData.getColumnCount();
+        byte[][] names = new byte[count][];
+        ColumnType[] types = new ColumnType[count];
+
+        Writer writer = new Writer(sink, bufferSize);
+        long rows = 0;
+        try {
+            for (int i = 0; i < count; i++) {
+                names[i] = name(metaData.getColumnLabel(i + 1), i > 0);
+                types[i] = ColumnType.of(metaData.getColumnType(i + 1));
+            }
+
+            writer.write((byte) '[');
+            while (resultSet.next()) {
+                if (rows > 0) {
+                    writer.write((byte) ',');
+                }
+                writer.write((byte) '{');
+                for (int i = 0; i < count; i++) {
+                    writer.write(names[i]);
+                    value(resultSet, i + 1, types[i], writer);
+                }
+                writer.write((byte) '}');
+                rows++;
+            }
+            writer.write((byte) ']');
+            writer.flush();
+        } catch (IOException e) {
+            throw new SQLException("Failed to write JSON", e);
+        }
+        return rows;
+    }
+
+    private static void value(ResultSet resultSet, int column, ColumnType type, Writer writer)
+            throws SQLException, IOException {
+        switch (type) {
+            case LONG -> {
+                long value = resultSet.getLong(column);
+                if (resultSet.wasNull()) {
+                    writer.write(NULL);
+                } else {
+                    writer.writeLong(value);
+                }
+            }
+            case DOUBLE -> {
+                double value = resultSet.getDouble(column);
+                // В JSON нет NaN и бесконечностей
+                if (resultSet.wasNull() || !Double.isFinite(value)) {
+                    writer.write(NULL);
+                } else {
+                    writer.writeAscii(Double.toString(value));
+                }
+            }
+            case BOOLEAN -> {
+                boolean value = resultSet.getBoolean(column);
+                writer.write(resultSet.wasNull() ? NULL : value ? TRUE : FALSE);
+            }
+            default -> {
+                String value = resultSet.getString(column);
+                if (value == null) {
+                    writer.write(NULL);
+                } else {
+                    writer.writeString(value);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return encoded name of the column with the separator before it
+     *         if it is not the first column
+     */
+    private static byte[] name(String label, boolean separated) throws IOException {
+        Writer writer = new Writer(null, label.length() * 6 + 4);
+        if (separated) {
+            writer.write((byte) ',');
+        }
+        writer.writeString(label);
+        writer.write((byte) ':');
+        return writer.toByteArray();
+    }
+
+    private interface Sink {
+        void write(byte[] bytes, int offset, int length) throws IOException;
+
+        void flush() throws IOException;
+    }
+
+    private static final class StreamSink implements Sink {
+
+        private final OutputStream output;
+
+        private StreamSink(OutputStream output) {
+            this.output = output;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            output.write(bytes, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            output.flush();
+        }
+    }
+
+    private static final class ChannelSink implements Sink {
+
+        private final WritableByteChannel channel;
+
+        private ChannelSink(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+    }
+
+    /**
+     * UTF-8 encoder of JSON tokens into the reusable buffer
+     */
+    private static final class Writer {
+
+        private final Sink sink;
+        private final byte[] buffer;
+        private int position;
+
+        private Writer(Sink sink, int size) {
+            this.sink = sink;
+            this.buffer = new byte[Math.max(size, 32)];
+        }
+
+        void write(byte value) throws IOException {
+            ensure(1);
+            buffer[position++] = value;
+        }
+
+        void write(byte[] bytes) throws IOException {
+            if (bytes.length > buffer.length - position) {
+                drain();
+                if (bytes.length > buffer.length) {
+                    sink.write(bytes, 0, bytes.length);
+                    return;
+                }
+            }
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        void writeAscii(String value) throws IOException {
+            ensure(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                buffer[position++] = (byte) value.charAt(i);
+            }
+        }
+
+        void writeLong(long value) throws IOException {
+            if (value == Long.MIN_VALUE) {
+                writeAscii("-9223372036854775808");
+                return;
+            }
+
+            ensure(20);
+            if (value < 0) {
+                buffer[position++] = '-';
+                value = -value;
+            }
+
+            int digits = 1;
+            for (long rest = value / 10; rest > 0; rest /= 10) {
+                digits++;
+            }
+            for (int i = position + digits - 1; i >= position; i--) {
+                buffer[i] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+            position += digits;
+        }
+
+        void writeString(String value) throws IOException {
+            write((byte) '"');
+            for (int i = 0; i < value.length(); i++) {
+                // Управляющий символ экранируется шестью байтами, остальные занимают не больше четырёх
+                ensure(6);
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    buffer[position++] = '\\';
+                    buffer[position++] = (byte) c;
+                } else if (c < 0x20) {
+                    escape(c);
+                } else if (c < 0x80) {
+                    buffer[position++] = (byte) c;
+                } else if (c < 0x800) {
+                    buffer[position++] = (byte) (0xc0 | c >> 6);
+                    buffer[position++] = (byte) (0x80 | c & 0x3f);
+                } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    buffer[position++] = (byte) (0xf0 | codePoint >> 18);
+                    buffer[position++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+                    buffer[position++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+                    buffer[position++] = (byte) (0x80 | codePoint & 0x3f);
+                } else if (Character.isSurrogate(c)) {
+                    // Непарный суррогат не кодируется в UTF-8
+                    buffer[position++] = '?';
+                } else {
+                    buffer[position++] = (byte) (0xe0 | c >> 12);
+                    buffer[position++] = (byte) (0x80 | c >> 6 & 0x3f);
+                    buffer[position++] = (byte) (0x80 | c & 0x3f);
+                }
+            }
+            write((byte) '"');
+        }
+
+        private void escape(char c) {
+            buffer[position++] = '\\';
+            switch (c) {
+                case '\n' -> buffer[position++] = 'n';
+                case '\r' -> buffer[position++] = 'r';
+                case '\t' -> buffer[position++] = 't';
+                case '\b' -> buffer[position++] = 'b';
+                case '\f' -> buffer[position++] = 'f';
+                default -> {
+                    buffer[position++] = 'u';
+                    buffer[position++] = '0';
+                    buffer[position++] = '0';
+                    buffer[position++] = HEX[c >> 4];
+                    buffer[position++] = HEX[c & 0xf];
+                }
+            }
+        }
+
+        void flush() throws IOException {
+            drain();
+            sink.flush();
+        }
+
+        byte[] toByteArray() {
+            byte[] bytes = new byte[position];
+            System.arraycopy(buffer, 0, bytes, 0, position);
+            return bytes;
+        }
+
+        private void ensure(int length) throws IOException {
+            if (length > buffer.length - position) {
+                drain();
+            }
+        }
+
+        private void drain() throws IOException {
+            if (position > 0) {
+                sink.write(buffer, 0, position);
+                position = 0;
+            }
+        }
+    }
+}
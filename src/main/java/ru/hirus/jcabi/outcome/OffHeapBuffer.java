@@ -0,0 +1,156 @@
+package ru.hirus.jcabi.outcome;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only byte storage that consists of direct buffers,
+ * so it grows without copying
+ * <br>
+ * The first buffer is small and every next one is twice larger up to
+ * the max chunk size, so short results do not take whole chunks
+ * <br>
+ * {@link OffHeapBuffer#release()} drops references to buffers, and their
+ * memory is returned when they are collected by the garbage collector,
+ * which also runs when the limit of direct memory is reached
+ * <br>
+ * <b>This class is not thread safe</b>
+ */
+final class OffHeapBuffer {
+
+    private static final int INITIAL_CHUNK_SIZE = 256;
+
+    private final int initial;
+    private final int chunkSize;
+
+    /**
+     * Count of chunks smaller than the max chunk size and their total size
+     */
+    private final int growing;
+    private final long grown;
+
+    private final List<ByteBuffer> chunks;
+    private long capacity;
+    private long size;
+    private boolean released;
+
+    /**
+     * @param chunkSize max size of one direct buffer, must be a positive multiple of 8,
+     *                  so aligned longs never cross the buffer boundary
+     */
+    OffHeapBuffer(int chunkSize) {
+        if (chunkSize <= 0 || chunkSize % Long.BYTES != 0) {
+            throw new IllegalArgumentException("chunkSize must be a positive multiple of 8");
+        }
+
+        this.initial = Math.min(INITIAL_CHUNK_SIZE, chunkSize);
+        this.chunkSize = chunkSize;
+
+        int growing = 0;
+        while ((long) initial << (growing + 1) <= chunkSize) {
+            growing++;
+        }
+        this.growing = growing;
+        this.grown = (long) initial * ((1L << growing) - 1);
+        this.chunks = new ArrayList<>();
+    }
+
+    long size() {
+        return size;
+    }
+
+    /**
+     * @return count of allocated bytes
+     */
+    long capacity() {
+        return capacity;
+    }
+
+    void putLong(long value) {
+        ensure(Long.BYTES);
+        chunk(size).putLong(offset(size), value);
+        size += Long.BYTES;
+    }
+
+    void putByte(byte value) {
+        ensure(1);
+        chunk(size).put(offset(size), value);
+        size++;
+    }
+
+    void put(byte[] bytes, int length) {
+        int written = 0;
+        while (written < length) {
+            ensure(1);
+            int offset = offset(size);
+            int count = Math.min(length - written, chunk(size).capacity() - offset);
+            chunk(size).put(offset, bytes, written, count);
+            written += count;
+            size += count;
+        }
+    }
+
+    void setByte(long position, byte value) {
+        chunk(position).put(offset(position), value);
+    }
+
+    long getLong(long position) {
+        return chunk(position).getLong(offset(position));
+    }
+
+    byte getByte(long position) {
+        return chunk(position).get(offset(position));
+    }
+
+    void get(long position, byte[] bytes, int length) {
+        int read = 0;
+        while (read < length) {
+            ByteBuffer chunk = chunk(position + read);
+            int offset = offset(position + read);
+            int count = Math.min(length - read, chunk.capacity() - offset);
+            chunk.get(offset, bytes, read, count);
+            read += count;
+        }
+    }
+
+    void release() {
+        released = true;
+        chunks.clear();
+        capacity = 0;
+    }
+
+    private void ensure(int bytes) {
+        if (released) {
+            throw new IllegalStateException("Buffer is released");
+        }
+        if (size + bytes > capacity) {
+            int next = chunks.size() < growing ? initial << chunks.size() : chunkSize;
+            chunks.add(ByteBuffer.allocateDirect(next));
+            capacity += next;
+        }
+    }
+
+    private ByteBuffer chunk(long position) {
+        if (released) {
+            throw new IllegalStateException("Buffer is released");
+        }
+        return chunks.get(index(position));
+    }
+
+    private int index(long position) {
+        if (position < grown) {
+            // Растущие куски занимают initial * (2^k - 1) байт до k-го
+            return 63 - Long.numberOfLeadingZeros(position / initial + 1);
+        }
+        return growing + (int) ((position - grown) / chunkSize);
+    }
+
+    private int offset(long position) {
+        if (position < grown) {
+            int index = index(position);
+            return (int) (position - (long) initial * ((1L << index) - 1));
+        }
+        return (int) ((position - grown) % chunkSize);
+    }
+}
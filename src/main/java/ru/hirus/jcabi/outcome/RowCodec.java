@@ -0,0 +1,17 @@
+package ru.hirus.jcabi.outcome;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Compact binary format of one row
+ *
+ * @param <T> row type
+ */
+public interface RowCodec<T> {
+
+    void write(T row, DataOutput output) throws IOException;
+
+    T read(DataInput input) throws IOException;
+}
@@ -0,0 +1,184 @@
+package ru.hirus.jcabi.outcome;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Read-only list which first rows are kept in memory and
+ * other rows are read from the memory-mapped file
+ * <br>
+ * The file contains rows encoded by {@link RowCodec}, each row is
+ * prefixed with its length. Every {@value #STRIDE}th offset is kept
+ * in memory, so random access reads at most {@value #STRIDE} lengths
+ * <br>
+ * {@link SpilledList#close()} deletes the file and drops references to
+ * its mappings, which are unmapped when they are collected by the garbage
+ * collector, after that spilled rows can not be read
+ * <br>
+ * <b>This class is not thread safe</b>
+ *
+ * @param <T> row type
+ */
+public final class SpilledList<T> extends AbstractList<T> implements AutoCloseable {
+
+    static final int STRIDE = 16;
+    private static final long SEGMENT = 1L << 30;
+
+    private final List<T> memory;
+    private final RowCodec<T> codec;
+    private final Path file;
+    private final long[] offsets;
+    private final int spilled;
+    private final MappedByteBuffer[] segments;
+    private boolean closed;
+
+    /**
+     * @param offsets   offsets of every {@value #STRIDE}th spilled row
+     * @param spilled   count of rows in the file
+     * @param maxRecord max length of a row in the file, including its prefix
+     */
+    SpilledList(List<T> memory, RowCodec<T> codec, Path file, long[] offsets, int spilled, int maxRecord)
+            throws IOException {
+        this.memory = memory;
+        this.codec = codec;
+        this.file = file;
+        this.offsets = offsets;
+        this.spilled = spilled;
+        this.segments = file == null ? new MappedByteBuffer[0] : map(file, maxRecord);
+    }
+
+    /**
+     * @return count of rows kept in memory
+     */
+    public int inMemory() {
+        return memory.size();
+    }
+
+    /**
+     * @return count of rows read from the file
+     */
+    public int spilled() {
+        return spilled;
+    }
+
+    @Override
+    public int size() {
+        return memory.size() + spilled;
+    }
+
+    @Override
+    public T get(int index) {
+        if (index < memory.size()) {
+            return memory.get(index);
+        }
+
+        int row = index - memory.size();
+        if (row >= spilled) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of " + size());
+        }
+
+        long position = offsets[row / STRIDE];
+        for (int i = 0; i < row % STRIDE; i++) {
+            position += Integer.BYTES + segment(position).getInt(offset(position));
+        }
+        return read(position);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            private int index;
+            private long position = spilled == 0 ? 0 : offsets[0];
+
+            @Override
+            public boolean hasNext() {
+                return index < size();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                if (index < memory.size()) {
+                    return memory.get(index++);
+                }
+
+                T row = read(position);
+                position += Integer.BYTES + segment(position).getInt(offset(position));
+                index++;
+                return row;
+            }
+        };
+    }
+
+    /**
+     * Deletes the file with spilled rows
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        // Отображение освобождается сборщиком мусора, поэтому
+        // ссылки на сегменты не должны переживать закрытие списка
+        Arrays.fill(segments, null);
+        if (file != null) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private T read(long position) {
+        ByteBuffer segment = segment(position);
+        int offset = offset(position);
+
+        byte[] bytes = new byte[segment.getInt(offset)];
+        segment.get(offset + Integer.BYTES, bytes);
+
+        try {
+            return codec.read(new DataInputStream(new ByteArrayInputStream(bytes)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Сегменты пересекаются на длину самой большой строки, поэтому
+    // строка всегда целиком лежит в сегменте, где она начинается
+    private ByteBuffer segment(long position) {
+        if (closed) {
+            throw new IllegalStateException("List is closed");
+        }
+        return segments[(int) (position / SEGMENT)];
+    }
+
+    private static int offset(long position) {
+        return (int) (position % SEGMENT);
+    }
+
+    private static MappedByteBuffer[] map(Path file, int maxRecord) throws IOException {
+        try (FileChannel channel = FileChannel.open(file)) {
+            long size = channel.size();
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + SEGMENT - 1) / SEGMENT)];
+            for (int i = 0; i < segments.length; i++) {
+                long start = i * SEGMENT;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size - start, SEGMENT + maxRecord));
+            }
+            return segments;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package ru.hirus.jcabi.outcome;
+
+import com.jcabi.jdbc.ListOutcome;
+import com.jcabi.jdbc.Outcome;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Outcome that keeps rows in memory until their encoded size exceeds
+ * the budget and writes other rows to the temporary file
+ * <br>
+ * The result is {@link SpilledList} that reads rows from both regions
+ * and must be closed by the caller to delete the file
+ * <br>
+ * <b>This class is immutable</b>
+ *
+ * @param <T> row type
+ */
+public final class SpillingOutcome<T> implements Outcome<SpilledList<T>> {
+
+    private final ListOutcome.Mapping<T> mapping;
+    private final RowCodec<T> codec;
+    private final long budget;
+    private final Path directory;
+
+    /**
+     * @param mapping maps the current row of the result set
+     * @param codec   encodes rows written to the file
+     * @param budget  max count of encoded bytes of rows kept in memory
+     */
+    public SpillingOutcome(ListOutcome.Mapping<T> mapping, RowCodec<T> codec, long budget) {
+        this(mapping, codec, budget, null);
+    }
+
+    /**
+     * @param directory directory of the temporary file or null
+     *                  for the default temporary directory
+     */
+    public SpillingOutcome(ListOutcome.Mapping<T> mapping, RowCodec<T> codec, long budget, Path directory) {
+        this.mapping = mapping;
+        this.codec = codec;
+        this.budget = budget;
+        this.directory = directory;
+    }
+
+    @Override
+    public SpilledList<T> handle(ResultSet resultSet, Statement statement) throws SQLException {
+        List<T> memory = new ArrayList<>();
+        long used = 0;
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream encoder = new DataOutputStream(bytes);
+
+        Path file = null;
+        DataOutputStream output = null;
+        long[] offsets = new long[16];
+        long position = 0;
+        int spilled = 0;
+        int maxRecord = 0;
+
+        try {
+            while (resultSet.next()) {
+                T row = mapping.map(resultSet);
+
+                bytes.reset();
+                codec.write(row, encoder);
+                encoder.flush();
+
+                if (output == null && used + bytes.size() <= budget) {
+                    memory.add(row);
+                    used += bytes.size();
+                    continue;
+                }
+
+                if (output == null) {
+                    file = directory == null
+                            ? Files.createTempFile("spill", ".rows")
+                            : Files.createTempFile(directory, "spill", ".rows");
+                    output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+                }
+
+                if (spilled % SpilledList.STRIDE == 0) {
+                    int index = spilled / SpilledList.STRIDE;
+                    if (index == offsets.length) {
+                        offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                    }
+                    offsets[index] = position;
+                }
+
+                output.writeInt(bytes.size());
+                bytes.writeTo(output);
+
+                position += Integer.BYTES + bytes.size();
+                maxRecord = Math.max(maxRecord, Integer.BYTES + bytes.size());
+                spilled++;
+            }
+
+            if (output != null) {
+                output.close();
+            }
+            return new SpilledList<>(memory, codec, file, offsets, spilled, maxRecord);
+        } catch (IOException e) {
+            delete(file, output, e);
+            throw new SQLException("Failed to spill rows", e);
+        } catch (SQLException | RuntimeException e) {
+            delete(file, output, e);
+            throw e;
+        }
+    }
+
+    private static void delete(Path file, OutputStream output, Exception cause) {
+        try {
+            if (output != null) {
+                output.close();
+            }
+            if (file != null) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package ru.hirus.jcabi.source;
+
+import java.time.Duration;
+
+/**
+ * Additive increase, multiplicative decrease limit
+ * <br>
+ * Limit grows by one after every fast execution that was made while the
+ * limit was used at least by half, and is multiplied by the backoff
+ * ratio after every execution slower than the timeout
+ */
+public final class AimdLimit implements Limit {
+
+    private final int initial;
+    private final int min;
+    private final int max;
+    private final double backoff;
+    private final long timeout;
+
+    /**
+     * @param backoff ratio in range (0, 1) the limit is multiplied by
+     * @param timeout latency that is considered as overload
+     */
+    public AimdLimit(int initial, int min, int max, double backoff, Duration timeout) {
+        if (min < 1 || min > initial || initial > max) {
+            throw new IllegalArgumentException("min <= initial <= max must be positive");
+        }
+        if (backoff <= 0 || backoff >= 1) {
+            throw new IllegalArgumentException("backoff must be in range (0, 1)");
+        }
+
+        this.initial = initial;
+        this.min = min;
+        this.max = max;
+        this.backoff = backoff;
+        this.timeout = timeout.toNanos();
+    }
+
+    @Override
+    public int initial() {
+        return initial;
+    }
+
+    @Override
+    public int update(int limit, long latency, int inFlight) {
+        if (latency > timeout) {
+            return Math.max(min, (int) (limit * backoff));
+        }
+        if (inFlight * 2 >= limit) {
+            return Math.min(max, limit + 1);
+        }
+        return limit;
+    }
+}
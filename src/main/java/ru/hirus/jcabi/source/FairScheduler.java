@@ -0,0 +1,450 @@
+package ru.hirus.jcabi.source;
+
+import ru.hirus.jcabi.lazy.Query;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+/**
+ * Shares connections of the data source between classes of executions,
+ * e.g. tenants or priorities, in proportion to their weights
+ * <br>
+ * Every class has its own {@link DataSource} view, see {@link FairScheduler#dataSource(String)}.
+ * The open connection of the view takes one of the slots, and connections
+ * beyond them wait in the queue of their class. When the slot is released,
+ * classes with waiting connections are visited in turn by deficit round robin:
+ * every visit adds the weight of the class multiplied by the quantum to its
+ * deficit, and the class is served while the deficit is positive
+ * <br>
+ * The cost of the connection is the time it is held. It is estimated by the
+ * average of the class when the connection is handed out and corrected when
+ * it is closed, so the class of long transactions gets fewer connections than
+ * the class of short ones with the same weight
+ * <br>
+ * The class is not served beyond its concurrency cap even if slots are free,
+ * so the cap of background classes keeps slots for interactive ones
+ * <br>
+ * <b>This class is thread safe</b>
+ */
+public final class FairScheduler {
+
+    private static final long QUANTUM = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final double SMOOTHING = 0.2;
+
+    private final DataSource dataSource;
+    private final int slots;
+    private final long maxWait;
+    private final Map<String, Lane> lanes;
+
+    private final ReentrantLock lock;
+    private final Deque<Lane> active;
+    private int inFlight;
+    private int queued;
+
+    /**
+     * @param slots   max count of connections open at once
+     * @param maxWait max time to wait in the queue
+     * @param shares  classes of executions
+     */
+    public FairScheduler(DataSource dataSource, int slots, Duration maxWait, List<Share> shares) {
+        if (slots < 1) {
+            throw new IllegalArgumentException("slots must be positive");
+        }
+
+        this.dataSource = dataSource;
+        this.slots = slots;
+        this.maxWait = maxWait.toNanos();
+
+        this.lock = new ReentrantLock();
+        this.active = new ArrayDeque<>();
+        this.lanes = new LinkedHashMap<>();
+        for (Share share : shares) {
+            if (lanes.put(share.name(), new Lane(share)) != null) {
+                throw new IllegalArgumentException("Class " + share.name() + " is declared twice");
+            }
+        }
+    }
+
+    /**
+     * @return view of the data source, which connections are
+     * scheduled as executions of the class
+     * @throws IllegalArgumentException if the class is not declared
+     */
+    public DataSource dataSource(String name) {
+        return lane(name).source;
+    }
+
+    /**
+     * Executes query as the execution of the class
+     *
+     * @throws SQLTransientConnectionException if the connection was not
+     *                                         handed out in time
+     * @throws IllegalArgumentException        if the class is not declared
+     */
+    public <R> R execute(String name, Query<R> query) throws SQLException {
+        return query.execute(dataSource(name));
+    }
+
+    /**
+     * @return metrics of classes in the order of their declaration
+     */
+    public List<Metrics> metrics() {
+        lock.lock();
+        try {
+            List<Metrics> metrics = new ArrayList<>(lanes.size());
+            for (Lane lane : lanes.values()) {
+                metrics.add(new Metrics(lane.share.name(), lane.inFlight, lane.waiters.size(), lane.executions,
+                        lane.rejected, Duration.ofNanos(lane.queueTime), Duration.ofNanos(lane.maxQueueTime)));
+            }
+            return metrics;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Lane lane(String name) {
+        Lane lane = lanes.get(name);
+        if (lane == null) {
+            throw new IllegalArgumentException("Class " + name + " is not declared, declared are " + lanes.keySet());
+        }
+        return lane;
+    }
+
+    /**
+     * @return cost charged to the deficit of the class
+     */
+    private long acquire(Lane lane) throws SQLException {
+        lock.lock();
+        try {
+            // Без очереди стоимость не списывается: делить пока нечего
+            if (queued == 0 && inFlight < slots && lane.inFlight < lane.share.maxInFlight()) {
+                lane.executions++;
+                lane.inFlight++;
+                inFlight++;
+                return 0;
+            }
+
+            Waiter waiter = new Waiter(lock.newCondition());
+            if (lane.waiters.isEmpty()) {
+                lane.deficit = Math.min(lane.deficit, 0);
+                active.addLast(lane);
+            }
+            lane.waiters.addLast(waiter);
+            queued++;
+            dispatch();
+
+            long left = maxWait;
+            try {
+                while (!waiter.granted) {
+                    if (left <= 0) {
+                        throw reject(lane, waiter, "timeout in queue");
+                    }
+                    left = waiter.condition.awaitNanos(left);
+                }
+            } catch (InterruptedException e) {
+                if (waiter.granted) {
+                    Thread.currentThread().interrupt();
+                } else {
+                    reject(lane, waiter, "interrupted");
+                    Thread.currentThread().interrupt();
+                    throw new SQLTransientConnectionException("Interrupted in queue of class " + lane.share.name(), e);
+                }
+            }
+            return waiter.cost;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private SQLException reject(Lane lane, Waiter waiter, String reason) {
+        lane.waiters.remove(waiter);
+        queued--;
+        lane.rejected++;
+        if (lane.waiters.isEmpty()) {
+            active.remove(lane);
+        }
+        return new SQLTransientConnectionException("Connection of class " + lane.share.name()
+                + " was not handed out: " + reason);
+    }
+
+    /**
+     * Hands free slots out to waiting connections
+     */
+    private void dispatch() {
+        int idle = 0;
+        while (inFlight < slots && !active.isEmpty()) {
+            int eligible = 0;
+            for (Lane lane : active) {
+                eligible += lane.inFlight < lane.share.maxInFlight() ? 1 : 0;
+            }
+            if (eligible == 0) {
+                return;
+            }
+
+            if (idle >= active.size()) {
+                skipRounds();
+                idle = 0;
+            }
+
+            Lane lane = active.pollFirst();
+            if (lane.inFlight >= lane.share.maxInFlight()) {
+                active.addLast(lane);
+                idle++;
+                continue;
+            }
+            if (lane.deficit <= 0) {
+                lane.deficit += quantum(lane);
+                active.addLast(lane);
+                idle++;
+                continue;
+            }
+
+            Waiter waiter = lane.waiters.pollFirst();
+            queued--;
+            waiter.granted = true;
+            waiter.cost = lane.estimate;
+            waiter.condition.signal();
+
+            long queueTime = System.nanoTime() - waiter.enqueued;
+            lane.executions++;
+            lane.queueTime += queueTime;
+            lane.maxQueueTime = Math.max(lane.maxQueueTime, queueTime);
+            lane.deficit -= waiter.cost;
+            lane.inFlight++;
+            inFlight++;
+            idle = 0;
+
+            if (lane.waiters.isEmpty()) {
+                lane.deficit = Math.min(lane.deficit, 0);
+            } else {
+                active.addFirst(lane);
+            }
+        }
+    }
+
+    /**
+     * Adds quanta of the rounds, in which nobody would be served,
+     * at once instead of visiting classes round by round
+     */
+    private void skipRounds() {
+        long rounds = Long.MAX_VALUE;
+        for (Lane lane : active) {
+            if (lane.inFlight < lane.share.maxInFlight()) {
+                rounds = Math.min(rounds, Math.max(0, -lane.deficit) / quantum(lane));
+            }
+        }
+        for (Lane lane : active) {
+            if (lane.inFlight < lane.share.maxInFlight()) {
+                lane.deficit += rounds * quantum(lane);
+            }
+        }
+    }
+
+    private void release(Lane lane, long cost, long held) {
+        lock.lock();
+        try {
+            if (cost > 0) {
+                lane.deficit -= held - cost;
+            }
+            lane.estimate += (long) (SMOOTHING * (held - lane.estimate));
+            lane.inFlight--;
+            inFlight--;
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static long quantum(Lane lane) {
+        return QUANTUM * lane.share.weight();
+    }
+
+    /**
+     * Class of executions
+     *
+     * @param name        name of the class, e.g. tenant or priority
+     * @param weight      share of connection time of the class relative to others
+     * @param maxInFlight max count of connections of the class open at once
+     */
+    public record Share(String name, int weight, int maxInFlight) {
+
+        public Share {
+            if (weight < 1 || maxInFlight < 1) {
+                throw new IllegalArgumentException("weight and maxInFlight must be positive");
+            }
+        }
+
+        /**
+         * @return class without concurrency cap
+         */
+        public static Share of(String name, int weight) {
+            return new Share(name, weight, Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * @param name         name of the class
+     * @param inFlight     current count of open connections
+     * @param queued       current count of waiting connections
+     * @param executions   count of handed out connections
+     * @param rejected     count of connections that were not handed out in time
+     * @param queueTime    total time handed out connections waited in the queue
+     * @param maxQueueTime the longest wait in the queue
+     */
+    public record Metrics(String name, int inFlight, int queued, long executions, long rejected,
+                          Duration queueTime, Duration maxQueueTime) {
+
+        /**
+         * @return average wait in the queue
+         */
+        public Duration averageQueueTime() {
+            return executions == 0 ? Duration.ZERO : queueTime.dividedBy(executions);
+        }
+    }
+
+    private static final class Waiter {
+
+        private final Condition condition;
+        private final long enqueued;
+        private boolean granted;
+        private long cost;
+
+        private Waiter(Condition condition) {
+            this.condition = condition;
+            this.enqueued = System.nanoTime();
+        }
+    }
+
+    private final class Lane {
+
+        private final Share share;
+        private final Deque<Waiter> waiters;
+        private final LaneSource source;
+        private long deficit;
+        private long estimate;
+        private int inFlight;
+        private long executions;
+        private long rejected;
+        private long queueTime;
+        private long maxQueueTime;
+
+        private Lane(Share share) {
+            this.share = share;
+            this.waiters = new ArrayDeque<>();
+            this.source = new LaneSource(this);
+            this.estimate = QUANTUM;
+        }
+    }
+
+    private final class LaneSource implements DataSource {
+
+        private final Lane lane;
+
+        private LaneSource(Lane lane) {
+            this.lane = lane;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            long cost = acquire(lane);
+            long start = System.nanoTime();
+
+            try {
+                return scheduled(dataSource.getConnection(), cost, start);
+            } catch (SQLException | RuntimeException e) {
+                release(lane, cost, System.nanoTime() - start);
+                throw e;
+            }
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            long cost = acquire(lane);
+            long start = System.nanoTime();
+
+            try {
+                return scheduled(dataSource.getConnection(username, password), cost, start);
+            } catch (SQLException | RuntimeException e) {
+                release(lane, cost, System.nanoTime() - start);
+                throw e;
+            }
+        }
+
+        private Connection scheduled(Connection connection, long cost, long start) {
+            AtomicBoolean closed = new AtomicBoolean();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().equals("close") && method.getParameterCount() == 0) {
+                            try {
+                                connection.close();
+                            } finally {
+                                if (closed.compareAndSet(false, true)) {
+                                    release(lane, cost, System.nanoTime() - start);
+                                }
+                            }
+                            return null;
+                        }
+
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+
+        @Override
+        public PrintWriter getLogWriter() throws SQLException {
+            return dataSource.getLogWriter();
+        }
+
+        @Override
+        public void setLogWriter(PrintWriter out) throws SQLException {
+            dataSource.setLogWriter(out);
+        }
+
+        @Override
+        public void setLoginTimeout(int seconds) throws SQLException {
+            dataSource.setLoginTimeout(seconds);
+        }
+
+        @Override
+        public int getLoginTimeout() throws SQLException {
+            return dataSource.getLoginTimeout();
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            return dataSource.getParentLogger();
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            return iface.isInstance(dataSource) ? iface.cast(dataSource) : dataSource.unwrap(iface);
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) throws SQLException {
+            return iface.isInstance(dataSource) || dataSource.isWrapperFor(iface);
+        }
+    }
+}
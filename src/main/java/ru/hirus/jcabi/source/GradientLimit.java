@@ -0,0 +1,66 @@
+package ru.hirus.jcabi.source;
+
+/**
+ * Vegas-style limit that compares latency with the latency
+ * observed without load
+ * <br>
+ * The ratio of the no-load latency to the smoothed latency
+ * (the gradient) shrinks the limit when the database starts queueing,
+ * and the square root of the limit is added as an allowed queue, so
+ * the limit keeps probing for free capacity. The no-load latency
+ * slowly drifts towards the current one, so the limit recovers when
+ * the database becomes permanently slower
+ */
+public final class GradientLimit implements Limit {
+
+    private static final double SMOOTHING = 0.2;
+    private static final double DRIFT = 0.001;
+
+    private final int initial;
+    private final int min;
+    private final int max;
+
+    private double noLoad;
+    private double smoothed;
+    private double estimate;
+
+    public GradientLimit(int initial, int min, int max) {
+        if (min < 1 || min > initial || initial > max) {
+            throw new IllegalArgumentException("min <= initial <= max must be positive");
+        }
+
+        this.initial = initial;
+        this.min = min;
+        this.max = max;
+        this.estimate = initial;
+    }
+
+    @Override
+    public int initial() {
+        return initial;
+    }
+
+    @Override
+    public int update(int limit, long latency, int inFlight) {
+        // Нулевая задержка грубого таймера дала бы 0 / 0 в градиенте
+        latency = Math.max(1, latency);
+        if (noLoad == 0 || latency < noLoad) {
+            noLoad = latency;
+            smoothed = latency;
+        } else {
+            smoothed += (latency - smoothed) * SMOOTHING;
+            noLoad += (smoothed - noLoad) * DRIFT;
+        }
+
+        // Если предел почти не используется, то задержка ничего
+        // не говорит о доступной мощности
+        if (inFlight * 2 < limit) {
+            return limit;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, noLoad / smoothed));
+        double target = estimate * gradient + Math.sqrt(estimate);
+        estimate = Math.max(min, Math.min(max, estimate * (1 - SMOOTHING) + target * SMOOTHING));
+        return (int) estimate;
+    }
+}
@@ -0,0 +1,37 @@
+package ru.hirus.jcabi.source;
+
+/**
+ * Algorithm that adjusts the count of allowed concurrent
+ * executions of {@link LimitedDataSource} using observed latency
+ * <br>
+ * Implementations are not required to be thread safe,
+ * {@link LimitedDataSource} calls them under its lock
+ */
+public interface Limit {
+
+    /**
+     * @return limit before any execution is observed
+     */
+    int initial();
+
+    /**
+     * Calculates new limit after the execution is finished
+     *
+     * @param limit    current limit
+     * @param latency  latency of the finished execution in nanoseconds
+     * @param inFlight count of executions, including finished one, that
+     *                 were running when the execution finished
+     * @return new limit
+     */
+    int update(int limit, long latency, int inFlight);
+
+    /**
+     * Calculates new limit after the execution was rejected
+     *
+     * @param limit current limit
+     * @return new limit
+     */
+    default int reject(int limit) {
+        return limit;
+    }
+}
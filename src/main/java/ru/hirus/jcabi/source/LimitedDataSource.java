@@ -0,0 +1,261 @@
+package ru.hirus.jcabi.source;
+
+import com.jcabi.jdbc.JdbcSession;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+/**
+ * {@link DataSource} that limits count of concurrently
+ * open connections and adjusts this limit using latency
+ * <br>
+ * The execution starts when the connection is acquired and finishes
+ * when it is closed. {@link JdbcSession} closes the connection right after
+ * commit, so for {@code Query#execute(DataSource)} the latency is the
+ * duration of the whole transaction
+ * <br>
+ * Connections beyond the limit wait in the bounded queue. If the queue
+ * is full or the connection was not acquired in time,
+ * {@link SQLTransientConnectionException} is thrown
+ * <br>
+ * <b>This class is thread safe</b>
+ */
+public final class LimitedDataSource implements DataSource {
+
+    private final DataSource dataSource;
+    private final Limit algorithm;
+    private final int maxQueue;
+    private final long maxWait;
+
+    private final ReentrantLock lock;
+    private final Condition released;
+    private int limit;
+    private int inFlight;
+    private int queued;
+    private long rejected;
+
+    /**
+     * @param algorithm algorithm that adjusts the limit
+     * @param maxQueue  max count of waiting acquisitions, zero to fail fast
+     * @param maxWait   max time to wait in the queue
+     */
+    public LimitedDataSource(DataSource dataSource, Limit algorithm, int maxQueue, Duration maxWait) {
+        this.dataSource = dataSource;
+        this.algorithm = algorithm;
+        this.maxQueue = maxQueue;
+        this.maxWait = maxWait.toNanos();
+
+        this.lock = new ReentrantLock();
+        this.released = lock.newCondition();
+        this.limit = algorithm.initial();
+    }
+
+    /**
+     * @return current count of allowed concurrent executions
+     */
+    public int limit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return current count of executions
+     */
+    public int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return current count of acquisitions waiting in the queue
+     */
+    public int queued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return count of rejected acquisitions since creation
+     */
+    public long rejected() {
+        lock.lock();
+        try {
+            return rejected;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        long start = System.nanoTime();
+
+        // Быстрый отказ в соединении, например во время аварии, не является
+        // быстрым выполнением, поэтому предел по нему не меняется
+        try {
+            return limited(dataSource.getConnection(), start);
+        } catch (SQLException | RuntimeException e) {
+            abandon();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        long start = System.nanoTime();
+
+        try {
+            return limited(dataSource.getConnection(username, password), start);
+        } catch (SQLException | RuntimeException e) {
+            abandon();
+            throw e;
+        }
+    }
+
+    private void acquire() throws SQLException {
+        lock.lock();
+        try {
+            if (inFlight < limit) {
+                inFlight++;
+                return;
+            }
+
+            if (queued >= maxQueue) {
+                throw reject("queue is full");
+            }
+
+            queued++;
+            try {
+                long left = maxWait;
+                while (inFlight >= limit) {
+                    if (left <= 0) {
+                        throw reject("timeout in queue");
+                    }
+                    left = released.awaitNanos(left);
+                }
+                inFlight++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLTransientConnectionException("Interrupted in queue", e);
+            } finally {
+                queued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private SQLException reject(String reason) {
+        rejected++;
+        limit = algorithm.reject(limit);
+        return new SQLTransientConnectionException("Concurrency limit " + limit + " is exceeded: " + reason);
+    }
+
+    private void release(long latency) {
+        lock.lock();
+        try {
+            limit = algorithm.update(limit, latency, inFlight);
+            inFlight--;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Frees the place of the execution that did not get a connection
+     * without the update of the limit
+     */
+    private void abandon() {
+        lock.lock();
+        try {
+            inFlight--;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Connection limited(Connection connection, long start) {
+        AtomicBoolean closed = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close") && method.getParameterCount() == 0) {
+                        try {
+                            connection.close();
+                        } finally {
+                            if (closed.compareAndSet(false, true)) {
+                                release(System.nanoTime() - start);
+                            }
+                        }
+                        return null;
+                    }
+
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return dataSource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        dataSource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        dataSource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return dataSource.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return dataSource.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(dataSource) ? iface.cast(dataSource) : dataSource.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(dataSource) || dataSource.isWrapperFor(iface);
+    }
+}
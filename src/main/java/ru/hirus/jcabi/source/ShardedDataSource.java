@@ -0,0 +1,123 @@
+package ru.hirus.jcabi.source;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Set of {@link DataSource}s, each of which holds a part of the data
+ * <br>
+ * It is not a {@link DataSource} itself, because the connection can be
+ * opened only to the shard of some key
+ * <br>
+ * Queries that run on all shards are executed by the provided executor,
+ * which is managed by the caller, or by the own pool of the fixed size,
+ * which is stopped by {@link ShardedDataSource#close()}
+ * <br>
+ * <b>This class is thread safe</b>
+ *
+ * @param <K> type of the shard key
+ */
+public final class ShardedDataSource<K> implements AutoCloseable {
+
+    private final List<DataSource> shards;
+    private final Sharding<? super K> sharding;
+    private final Executor executor;
+    private final ExecutorService owned;
+
+    /**
+     * @param executor executor of queries that run on all shards in parallel,
+     *                 it is not stopped by {@link ShardedDataSource#close()}
+     */
+    public ShardedDataSource(List<? extends DataSource> shards, Sharding<? super K> sharding, Executor executor) {
+        this(shards, sharding, executor, null);
+    }
+
+    /**
+     * Creates sharded data source that executes queries on all shards
+     * using its own pool of daemon threads, which are stopped when
+     * they are idle. Queries wait in the queue while all threads are busy
+     *
+     * @param threads max count of queries executed in parallel, usually
+     *                the count of shards multiplied by the count of
+     *                concurrent callers that query all shards
+     */
+    public ShardedDataSource(List<? extends DataSource> shards, Sharding<? super K> sharding, int threads) {
+        this(shards, sharding, null, pool(threads));
+    }
+
+    /**
+     * Creates sharded data source with its own pool of one thread per shard,
+     * so only one query on all shards is executed fully in parallel
+     */
+    public ShardedDataSource(List<? extends DataSource> shards, Sharding<? super K> sharding) {
+        this(shards, sharding, Math.max(1, shards.size()));
+    }
+
+    private ShardedDataSource(List<? extends DataSource> shards, Sharding<? super K> sharding, Executor executor,
+                              ExecutorService owned) {
+        if (shards.isEmpty()) {
+            if (owned != null) {
+                owned.shutdown();
+            }
+            throw new IllegalArgumentException("There must be at least one shard");
+        }
+
+        this.shards = List.copyOf(shards);
+        this.sharding = sharding;
+        this.executor = owned != null ? owned : executor;
+        this.owned = owned;
+    }
+
+    private static ExecutorService pool(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "sharded-data-source");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * @return shard that holds data of the key
+     */
+    public DataSource shard(K key) {
+        int shard = sharding.shard(key, shards.size());
+        if (shard < 0 || shard >= shards.size()) {
+            throw new IllegalStateException("Sharding returned " + shard + " for " + shards.size() + " shards");
+        }
+        return shards.get(shard);
+    }
+
+    /**
+     * @return all shards in order of their indexes
+     */
+    public List<DataSource> shards() {
+        return shards;
+    }
+
+    public Executor executor() {
+        return executor;
+    }
+
+    /**
+     * Stops the own pool after queries that are already submitted,
+     * the executor provided by the caller is left running
+     */
+    @Override
+    public void close() {
+        if (owned != null) {
+            owned.shutdown();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package ru.hirus.jcabi.source;
+
+/**
+ * Function that chooses the shard of the key
+ *
+ * @param <K> type of the shard key
+ */
+@FunctionalInterface
+public interface Sharding<K> {
+
+    /**
+     * @param shards count of shards
+     * @return index of the shard from zero to {@code shards - 1}
+     */
+    int shard(K key, int shards);
+
+    /**
+     * @return sharding by the hash code of the key modulo count of shards
+     */
+    static <K> Sharding<K> hash() {
+        return (key, shards) -> Math.floorMod(key.hashCode(), shards);
+    }
+}
@@ -0,0 +1,181 @@
+package ru.hirus.jcabi.sql;
+
+import org.intellij.lang.annotations.Language;
+import ru.hirus.jcabi.lazy.JdbcQuery;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builder of SQL with optional predicates, which renders the same text
+ * for the same set of present predicates regardless of their values
+ * <br>
+ * The query is the base followed by {@code WHERE} with present predicates
+ * joined by {@code AND} in the order of their addition, and by the tail,
+ * e.g. {@code ORDER BY}. Lists of values are bound as one array parameter
+ * of {@code = ANY(?)} instead of {@code IN (?, ?, ...)}, so the count of
+ * distinct statements depends only on combinations of filters, and the
+ * statement cache of the driver and plans of the server are reused
+ * <br>
+ * Rendered SQL strings are interned, so equal queries share one string
+ * <br>
+ * <b>This class is not thread safe</b>
+ */
+public final class Sql {
+
+    private static final int MAX_INTERNED = 10_000;
+    private static final Map<String, String> INTERNED = new ConcurrentHashMap<>();
+
+    private final String base;
+    private final List<Fragment> predicates;
+    private final List<Fragment> tail;
+
+    private Sql(String base) {
+        this.base = base.strip();
+        this.predicates = new ArrayList<>();
+        this.tail = new ArrayList<>();
+    }
+
+    /**
+     * @param base query without {@code WHERE}, e.g. {@code SELECT id, name FROM parent}
+     */
+    public static Sql of(@Language("PostgreSQL") String base) {
+        return new Sql(base);
+    }
+
+    /**
+     * Adds predicate that is always present
+     *
+     * @param arguments values of placeholders of the predicate
+     */
+    public Sql where(@Language(value = "PostgreSQL", prefix = "SELECT * FROM t WHERE ") String predicate,
+                     Object... arguments) {
+        predicates.add(new Fragment(predicate.strip(), Arrays.asList(arguments.clone())));
+        return this;
+    }
+
+    /**
+     * Adds predicate if the condition is true
+     */
+    public Sql whereIf(boolean condition,
+                       @Language(value = "PostgreSQL", prefix = "SELECT * FROM t WHERE ") String predicate,
+                       Object... arguments) {
+        return condition ? where(predicate, arguments) : this;
+    }
+
+    /**
+     * Adds predicate with one placeholder if the value is not null
+     */
+    public Sql whereNotNull(@Language(value = "PostgreSQL", prefix = "SELECT * FROM t WHERE ") String predicate,
+                            Object value) {
+        return value == null ? this : where(predicate, value);
+    }
+
+    /**
+     * Adds {@code column = ANY(?)} with values bound as one array if they are
+     * not null. Empty values match nothing, as empty {@code IN} list would
+     *
+     * @param sqlType SQL name of the element type, e.g. {@code bigint}
+     */
+    public Sql whereAny(String column, String sqlType, Collection<?> values) {
+        if (values == null) {
+            return this;
+        }
+        return where(column + " = ANY(?)", new SqlArray(sqlType, new ArrayList<>(values)));
+    }
+
+    /**
+     * Appends fragment after predicates, e.g. {@code ORDER BY} or {@code LIMIT ?}
+     */
+    public Sql append(String fragment, Object... arguments) {
+        tail.add(new Fragment(fragment.strip(), Arrays.asList(arguments.clone())));
+        return this;
+    }
+
+    /**
+     * @return interned SQL
+     */
+    public String sql() {
+        StringBuilder sql = new StringBuilder(base);
+        for (int i = 0; i < predicates.size(); i++) {
+            sql.append(i == 0 ? " WHERE " : " AND ");
+            // Скобки сохраняют смысл предикатов с OR внутри
+            sql.append('(').append(predicates.get(i).text()).append(')');
+        }
+        for (Fragment fragment : tail) {
+            sql.append(' ').append(fragment.text());
+        }
+        return intern(sql.toString());
+    }
+
+    /**
+     * @return values of placeholders in the order of the SQL
+     */
+    public List<Object> arguments() {
+        List<Object> arguments = new ArrayList<>();
+        predicates.forEach(predicate -> arguments.addAll(predicate.arguments()));
+        tail.forEach(fragment -> arguments.addAll(fragment.arguments()));
+        return arguments;
+    }
+
+    /**
+     * Passes the SQL to the builder and binds arguments by typed setters
+     *
+     * @param builder builder of the query, e.g. {@code Query.select()}
+     * @return builder to complete
+     */
+    public JdbcQuery.Builder to(JdbcQuery.BuilderSql builder) {
+        JdbcQuery.Builder query = builder.sql(sql());
+        for (Object argument : arguments()) {
+            if (argument instanceof Long value) {
+                query.setLong(value);
+            } else if (argument instanceof Integer value) {
+                query.setInt(value);
+            } else if (argument instanceof String value) {
+                query.setString(value);
+            } else if (argument instanceof Timestamp value) {
+                query.setTimestamp(value);
+            } else if (argument instanceof SqlArray array) {
+                query.setArray(array.sqlType(), array.elements());
+            } else {
+                query.set(argument);
+            }
+        }
+        return query;
+    }
+
+    /**
+     * @return count of distinct interned SQL strings
+     */
+    public static int statements() {
+        return INTERNED.size();
+    }
+
+    @Override
+    public String toString() {
+        return sql();
+    }
+
+    private static String intern(String sql) {
+        String interned = INTERNED.get(sql);
+        if (interned != null) {
+            return interned;
+        }
+        if (INTERNED.size() >= MAX_INTERNED) {
+            return sql;
+        }
+        interned = INTERNED.putIfAbsent(sql, sql);
+        return interned == null ? sql : interned;
+    }
+
+    private record Fragment(String text, List<Object> arguments) {
+    }
+
+    private record SqlArray(String sqlType, List<Object> elements) {
+    }
+}
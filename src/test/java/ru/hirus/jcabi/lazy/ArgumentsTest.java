@@ -0,0 +1,91 @@
+package ru.hirus.jcabi.lazy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.jcabi.jdbc.SingleOutcome;
+import org.junit.jupiter.api.Test;
+import ru.hirus.jcabi.misc.ScriptedDataSource;
+
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+
+public class ArgumentsTest {
+
+    @Test
+    void placeholdersTest() {
+        assertEquals(0, Arguments.placeholders("SELECT 1"));
+        assertEquals(2, Arguments.placeholders("SELECT name FROM test WHERE id = ? AND name = ?"));
+
+        // --- Literals, identifiers, comments and escapes are skipped
+        assertEquals(1, Arguments.placeholders("SELECT '?', 'it''s ?', \"?\" FROM test WHERE id = ?"));
+        assertEquals(1, Arguments.placeholders("SELECT ? -- what?\n/* and? */"));
+        assertEquals(1, Arguments.placeholders("SELECT $$ ? $$, $body$ ?$ $body$ WHERE data ?? 'key' AND id = ?"));
+        assertEquals(2, Arguments.placeholders("SELECT $1, ? FROM test WHERE id = ?"));
+
+        // --- Backslash escapes the quote in escape strings only
+        assertEquals(1, Arguments.placeholders("SELECT E'it\\'s ?', e'\\\\' FROM test WHERE id = ?"));
+        assertEquals(2, Arguments.placeholders("SELECT 'C:\\' FROM test WHERE id = ? AND name = ?"));
+        assertEquals(1, Arguments.placeholders("SELECT name FROM test WHERE type='?' AND id = ?"));
+    }
+
+    @Test
+    void validationTest() {
+        // --- Mismatch fails at construction
+        assertThrows(JdbcQuery.Builder.NotCompleteQueryException.class, () -> Query.select()
+                .sql("SELECT name FROM test WHERE id = ? AND name = ?")
+                .setLong(1)
+                .build(new SingleOutcome<>(String.class, true)));
+
+        // --- Custom preparations may bind parameters themselves
+        Query.select()
+                .sql("SELECT name FROM test WHERE id = ?")
+                .prepare(statement -> statement.setLong(1, 1))
+                .build(new SingleOutcome<>(String.class, true));
+    }
+
+    @Test
+    void bindTest() throws SQLException {
+        ScriptedDataSource dataSource = new ScriptedDataSource();
+        dataSource.on("SELECT").columns("name").row("Name");
+
+        Timestamp timestamp = new Timestamp(0);
+        Query.select()
+                .sql("SELECT name FROM test WHERE id = ? AND count = ? AND name = ? AND created = ? AND data = ?")
+                .setLong(1)
+                .setInt(2)
+                .setString("Name")
+                .setTimestamp(timestamp)
+                .set((Object) null)
+                .build(new SingleOutcome<>(String.class))
+                .execute(dataSource);
+
+        assertEquals(Arrays.asList(1L, 2, "Name", timestamp, null),
+                dataSource.calls("executeQuery").get(0).parameters());
+
+        // --- Untyped arguments are still bound by jcabi
+        Query.select()
+                .sql("SELECT name FROM test WHERE id = ?")
+                .set(3L)
+                .build(new SingleOutcome<>(String.class))
+                .execute(dataSource);
+
+        assertEquals(List.of(3L), dataSource.calls("executeQuery").get(1).parameters());
+
+        // --- Untyped arguments next to typed ones are not converted
+        Date date = Date.valueOf("2024-01-01");
+        Time time = Time.valueOf("12:00:00");
+        Query.select()
+                .sql("SELECT name FROM test WHERE id = ? AND day = ? AND at = ?")
+                .setLong(4)
+                .set(date, time)
+                .build(new SingleOutcome<>(String.class))
+                .execute(dataSource);
+
+        assertEquals(List.of(4L, date, time), dataSource.calls("executeQuery").get(2).parameters());
+    }
+}
@@ -0,0 +1,107 @@
+package ru.hirus.jcabi.lazy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static ru.hirus.jcabi.misc.TestRecordQueries.createTable;
+import static ru.hirus.jcabi.misc.TestRecordQueries.insert;
+
+import com.jcabi.jdbc.Outcome;
+import org.junit.jupiter.api.Test;
+import ru.hirus.jcabi.misc.PostgresDatabaseTestTemplate;
+import ru.hirus.jcabi.misc.TestRecord;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+public class BatchLoaderTest extends PostgresDatabaseTestTemplate {
+
+    private final List<Set<Long>> batches = new ArrayList<>();
+
+    private final BatchLoader<Long, String> delegate = BatchLoader.any(
+            "SELECT id, name FROM test WHERE id = ANY(?)",
+            "bigint",
+            resultSet -> resultSet.getLong(1),
+            resultSet -> resultSet.getString(2)
+    );
+
+    private final BatchLoader<Long, String> loader = keys -> {
+        batches.add(keys);
+        return delegate.loadAll(keys);
+    };
+
+    @Test
+    void sequenceTest() throws SQLException {
+        // --- Create table
+        DataSource dataSource = factoryDataSource();
+
+        createTable().execute(dataSource);
+        insert("Name1").then(insert("Name2")).then(insert("Name3")).execute(dataSource);
+
+        // --- Sequence of loads is resolved using one query
+        Query<List<TestRecord>> sequence = new Query.Sequence<>(Arrays.asList(
+                Query.load(loader, 1L).map(name -> new TestRecord(1, name)),
+                Query.load(loader, 3L).map(name -> new TestRecord(3, name)),
+                Query.load(loader, 4L).map(name -> new TestRecord(4, name)),
+                Query.load(loader, 1L).map(name -> new TestRecord(1, name))
+        ));
+
+        List<TestRecord> records = sequence.execute(dataSource);
+        assertEquals(List.of(
+                new TestRecord(1, "Name1"),
+                new TestRecord(3, "Name3"),
+                new TestRecord(4, null),
+                new TestRecord(1, "Name1")
+        ), records);
+
+        assertEquals(List.of(Set.of(1L, 3L, 4L)), batches);
+    }
+
+    @Test
+    void memoTest() throws SQLException {
+        // --- Create table
+        DataSource dataSource = factoryDataSource();
+
+        createTable().execute(dataSource);
+        insert("Name1").then(insert("Name2")).execute(dataSource);
+
+        // --- Loaded keys are not loaded again in the same transaction
+        String names = Query.load(loader, 1L)
+                .thenCompose(first -> new Query.Sequence<>(List.of(
+                        Query.load(loader, 1L),
+                        Query.load(loader, 2L)
+                )).map(list -> first + list))
+                .execute(dataSource);
+
+        assertEquals("Name1[Name1, Name2]", names);
+        assertEquals(List.of(Set.of(1L), Set.of(2L)), batches);
+
+        // --- Memo is discarded after the transaction
+        Query.load(loader, 1L).execute(dataSource);
+        assertEquals(List.of(Set.of(1L), Set.of(2L), Set.of(1L)), batches);
+    }
+
+    @Test
+    void invalidationTest() throws SQLException {
+        // --- Create table
+        DataSource dataSource = factoryDataSource();
+
+        createTable().execute(dataSource);
+        insert("Name1").execute(dataSource);
+
+        // --- Writes of the transaction discard loaded values
+        String name = Query.load(loader, 1L)
+                .then(Query.update()
+                        .sql("UPDATE test SET name = ? WHERE id = ?")
+                        .setString("Changed")
+                        .setLong(1)
+                        .build(Outcome.VOID))
+                .then(Query.load(loader, 1L))
+                .execute(dataSource);
+
+        assertEquals("Changed", name);
+        assertEquals(List.of(Set.of(1L), Set.of(1L)), batches);
+    }
+}
@@ -0,0 +1,101 @@
+package ru.hirus.jcabi.lazy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.jcabi.jdbc.Outcome;
+import com.jcabi.jdbc.SingleOutcome;
+import org.javatuples.Pair;
+import org.junit.jupiter.api.Test;
+import ru.hirus.jcabi.lazy.forcomprehension.Do;
+import ru.hirus.jcabi.misc.ScriptedDataSource;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.Supplier;
+
+public class CachedQueryTest {
+
+    private final ScriptedDataSource dataSource = new ScriptedDataSource();
+
+    {
+        dataSource.on("SELECT name FROM test WHERE id = \\?", parameters -> new ScriptedDataSource.Response()
+                .columns("name")
+                .row("Name" + parameters.get(0)));
+        dataSource.on("UPDATE test").updateCount(1);
+        dataSource.on("SELECT name FROM test WHERE data = \\?").columns("name").row("Data");
+    }
+
+    private static JdbcQuery<String> select(long id) {
+        return Query.select()
+                .sql("SELECT name FROM test WHERE id = ?")
+                .setLong(id)
+                .build(new SingleOutcome<>(String.class, true))
+                .cached();
+    }
+
+    private static Query<Long> update(long id) {
+        return Query.update()
+                .sql("UPDATE test SET name = ? WHERE id = ?")
+                .setString("Name")
+                .setLong(id)
+                .build(new SingleOutcome<>(Long.class, true));
+    }
+
+    @Test
+    void cacheTest() throws SQLException {
+        // --- Repeated selects of one transaction are executed once
+        Pair<String, Integer> pair = Do.of(select(1), name -> select(1).map(String::length)).execute(dataSource);
+
+        assertEquals(Pair.with("Name1", 5), pair);
+        assertEquals(1, dataSource.statements().size());
+
+        // --- Different arguments are different entries
+        List<String> names = new Query.Sequence<>(List.of(select(1), select(2), select(1))).execute(dataSource);
+
+        assertEquals(List.of("Name1", "Name2", "Name1"), names);
+        assertEquals(3, dataSource.statements().size());
+    }
+
+    @Test
+    void invalidationTest() throws SQLException {
+        // --- Writes of the transaction invalidate remembered rows
+        select(1).then(update(1)).then(select(1)).execute(dataSource);
+        assertEquals(3, dataSource.statements().size());
+
+        // --- Rows are not shared between transactions
+        select(1).execute(dataSource);
+        select(1).execute(dataSource);
+        assertEquals(5, dataSource.statements().size());
+    }
+
+    @Test
+    void statementTest() throws SQLException {
+        Outcome<String> outcome = (resultSet, statement) -> {
+            // Выходы, которые читают свойства выражения, работают и с переиспользованными строками
+            assertNull(statement.getWarnings());
+            assertEquals(-1, statement.getUpdateCount());
+            return resultSet.next() ? resultSet.getString(1) + statement.getFetchSize() : null;
+        };
+        Supplier<Query<String>> select = () -> Query.select()
+                .sql("SELECT name FROM test WHERE data = ?")
+                .set((Object) new byte[]{1, 2})
+                .build(outcome)
+                .cached();
+
+        // --- Arrays with equal contents hit the cache
+        assertEquals(List.of("Data0", "Data0"), new Query.Sequence<>(List.of(select.get(), select.get()))
+                .execute(dataSource));
+        assertEquals(1, dataSource.statements().size());
+    }
+
+    @Test
+    void unsupportedTest() {
+        assertThrows(UnsupportedOperationException.class, () -> Query.update()
+                .sql("UPDATE test SET name = ? WHERE id = ?")
+                .set("Name", 1L)
+                .build(new SingleOutcome<>(Long.class, true))
+                .cached());
+    }
+}
@@ -0,0 +1,47 @@
+package ru.hirus.jcabi.lazy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import ru.hirus.jcabi.misc.ScriptedDataSource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class CancellableSourceTest {
+
+    @Test
+    void credentialsTest() throws Exception {
+        ScriptedDataSource dataSource = new ScriptedDataSource();
+        dataSource.on("SELECT pg_sleep").latency(Duration.ofMinutes(1));
+        CancellableSource source = new CancellableSource(dataSource);
+
+        // --- Statement of the connection acquired with credentials is cancelled
+        try (Connection connection = source.getConnection("user", "password")) {
+            PreparedStatement statement = connection.prepareStatement("SELECT pg_sleep(60)");
+            CompletableFuture<Boolean> execution = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return statement.execute();
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            while (dataSource.calls("execute").isEmpty()) {
+                Thread.onSpinWait();
+            }
+            source.cancel();
+
+            ExecutionException failure = assertThrows(ExecutionException.class,
+                    () -> execution.get(5, TimeUnit.SECONDS));
+            assertEquals("57014", ((SQLException) failure.getCause().getCause()).getSQLState());
+            assertEquals(1, dataSource.calls("cancel").size());
+        }
+        assertThrows(SQLException.class, () -> source.getConnection("user", "password"));
+    }
+}
@@ -0,0 +1,31 @@
+package ru.hirus.jcabi.lazy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import ru.hirus.jcabi.misc.ScriptedDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+public class ExecutionSourceTest {
+
+    @Test
+    void credentialsTest() throws SQLException {
+        ScriptedDataSource dataSource = new ScriptedDataSource();
+        ExecutionSource source = new ExecutionSource(dataSource, true);
+        assertFalse(source.connected());
+
+        // --- Connection acquired with credentials is observed like others
+        try (Connection connection = source.getConnection("user", "password")) {
+            assertTrue(source.connected());
+            assertTrue(connection.isReadOnly());
+        }
+        assertEquals(List.of(List.of(true), List.of(false)), dataSource.calls("setReadOnly").stream()
+                .map(ScriptedDataSource.Call::parameters)
+                .toList());
+    }
+}
@@ -0,0 +1,79 @@
+package ru.hirus.jcabi.lazy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.hirus.jcabi.misc.TestRecordQueries.createTable;
+import static ru.hirus.jcabi.misc.TestRecordTransactions.insertSelect;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import ru.hirus.jcabi.misc.PostgresDatabaseTestTemplate;
+
+import javax.sql.DataSource;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class FlightRecorderTest extends PostgresDatabaseTestTemplate {
+
+    @Test
+    void eventsTest() throws Exception {
+        // --- Create table
+        DataSource dataSource = factoryDataSource();
+
+        createTable().execute(dataSource);
+
+        // --- Record transaction
+        Configuration configuration;
+        try (Reader reader = new InputStreamReader(
+                Query.class.getResourceAsStream("jdbc.jfc"), StandardCharsets.UTF_8)) {
+            configuration = Configuration.create(reader);
+        }
+
+        Path file = Files.createTempFile("jdbc", ".jfr");
+        try (Recording recording = new Recording(configuration)) {
+            recording.start();
+            insertSelect("Name").execute(dataSource);
+            recording.stop();
+            recording.dump(file);
+        }
+
+        // --- Parse recording
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+
+        List<RecordedEvent> queries = byName(events, "ru.hirus.jcabi.JdbcQuery");
+        assertEquals(2, queries.size());
+
+        RecordedEvent insert = queries.get(0);
+        assertEquals("INSERT", insert.getString("kind"));
+        assertEquals("INSERT INTO test (name) VALUES (?) RETURNING id", insert.getString("sql"));
+        assertEquals(1, insert.getLong("rows"));
+        assertFalse(insert.getString("fingerprint").isEmpty());
+
+        RecordedEvent select = queries.get(1);
+        assertEquals("SELECT", select.getString("kind"));
+        assertEquals(1, select.getLong("rows"));
+
+        List<RecordedEvent> commits = byName(events, "ru.hirus.jcabi.Commit");
+        assertEquals(1, commits.size());
+        assertTrue(commits.get(0).getBoolean("success"));
+
+        assertEquals(1, byName(events, "ru.hirus.jcabi.ConnectionAcquisition").size());
+    }
+
+    private static List<RecordedEvent> byName(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime()))
+                .collect(Collectors.toList());
+    }
+}
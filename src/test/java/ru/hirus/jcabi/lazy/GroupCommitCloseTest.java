@@ -0,0 +1,77 @@
+package ru.hirus.jcabi.lazy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.jcabi.jdbc.Outcome;
+import org.junit.jupiter.api.Test;
+import ru.hirus.jcabi.misc.ScriptedDataSource;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class GroupCommitCloseTest {
+
+    private final ScriptedDataSource dataSource = new ScriptedDataSource();
+
+    {
+        dataSource.on("INSERT INTO audit").updateCount(1);
+        dataSource.on("INSERT INTO broken").fail("23505", "Duplicate key");
+    }
+
+    private static Query<Void> insert(String table) {
+        return Query.insert().sql("INSERT INTO " + table + " VALUES (1)").build(Outcome.VOID);
+    }
+
+    @Test
+    void savepointTest() throws SQLException {
+        try (GroupCommit groupCommit = new GroupCommit(dataSource, Duration.ofMillis(50), 10)) {
+            CompletableFuture<Void> broken = groupCommit.submit(insert("broken"));
+            groupCommit.execute(insert("audit"));
+            assertTrue(broken.isCompletedExceptionally());
+        }
+
+        // --- Savepoint of the failed query is released as well
+        assertEquals(2, dataSource.calls("setSavepoint").size());
+        assertEquals(2, dataSource.calls("releaseSavepoint").size());
+    }
+
+    @Test
+    void closeTest() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            GroupCommit groupCommit = new GroupCommit(dataSource, Duration.ofMillis(1), 10);
+            CountDownLatch started = new CountDownLatch(4);
+            List<CompletableFuture<List<CompletableFuture<Void>>>> submitters = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                submitters.add(CompletableFuture.supplyAsync(() -> {
+                    started.countDown();
+                    List<CompletableFuture<Void>> futures = new ArrayList<>();
+                    for (int j = 0; j < 200; j++) {
+                        futures.add(groupCommit.submit(insert("audit")));
+                    }
+                    return futures;
+                }));
+            }
+
+            started.await();
+            groupCommit.close();
+
+            // --- Queries submitted during the close are completed, none is lost
+            for (CompletableFuture<List<CompletableFuture<Void>>> submitter : submitters) {
+                for (CompletableFuture<Void> future : submitter.get(5, TimeUnit.SECONDS)) {
+                    try {
+                        future.handle((result, e) -> null).get(5, TimeUnit.SECONDS);
+                    } catch (TimeoutException e) {
+                        throw new AssertionError("Query submitted during the close is not completed", e);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package ru.hirus.jcabi.lazy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.hirus.jcabi.misc.TestRecordQueries.createTable;
+import static ru.hirus.jcabi.misc.TestRecordQueries.insert;
+import static ru.hirus.jcabi.misc.TestRecordQueries.select;
+
+import org.junit.jupiter.api.Test;
+import ru.hirus.jcabi.misc.PostgresDatabaseTestTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+public class GroupCommitTest extends PostgresDatabaseTestTemplate {
+
+    @Test
+    void groupCommitTest() throws Exception {
+        // --- Create table
+        DataSource dataSource = factoryDataSource();
+
+        createTable().execute(dataSource);
+
+        // --- Submit queries to one group
+        List<CompletableFuture<Long>> futures = new ArrayList<>();
+        CompletableFuture<String> failed;
+
+        try (GroupCommit groupCommit = new GroupCommit(staticDataSource(), Duration.ofMillis(200), 10)) {
+            futures.add(groupCommit.submit(insert("Name1")));
+            failed = groupCommit.submit(insert("Name2")
+                    .thenCompose(id -> Query.exception(() -> new SQLException("Failure"))));
+            futures.add(groupCommit.submit(insert("Name3")));
+
+            assertEquals("Name1", groupCommit.execute(select(1)));
+        }
+
+        // --- Failure is isolated by savepoint
+        List<Long> ids = new ArrayList<>();
+        for (CompletableFuture<Long> future : futures) {
+            ids.add(future.get());
+        }
+        assertEquals(List.of(1L, 3L), ids);
+
+        ExecutionException exception = assertThrows(ExecutionException.class, failed::get);
+        assertTrue(exception.getCause() instanceof SQLException);
+
+        assertEquals("Name1", select(1).execute(dataSource));
+        assertNull(select(2).execute(dataSource));
+        assertEquals("Name3", select(3).execute(dataSource));
+    }
+}
@@ -0,0 +1,90 @@
+package ru.hirus.jcabi.lazy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.jcabi.jdbc.SingleOutcome;
+import org.junit.jupiter.api.Test;
+import ru.hirus.jcabi.misc.ScriptedDataSource;
+
+import java.sql.SQLException;
+import java.time.Duration;
+
+public class HedgedReadsTest {
+
+    private final ScriptedDataSource primary = new ScriptedDataSource();
+    private final ScriptedDataSource secondary = new ScriptedDataSource();
+
+    {
+        primary.on("SELECT name FROM test WHERE id = 1").columns("name").row("Primary")
+                .latency(Duration.ofSeconds(5));
+        primary.on("SELECT name FROM test WHERE id = 2").columns("name").row("Primary");
+        primary.on("SELECT missing").fail("42703", "column does not exist").latency(Duration.ofMillis(200));
+        secondary.on("SELECT name").columns("name").row("Secondary");
+        secondary.on("SELECT missing").fail("42703", "column does not exist");
+    }
+
+    private static JdbcQuery<String> select(long id) {
+        return Query.select()
+                .sql("SELECT name FROM test WHERE id = " + id)
+                .build(new SingleOutcome<>(String.class));
+    }
+
+    @Test
+    void hedgeTest() throws SQLException {
+        HedgedReads hedgedReads = new HedgedReads(primary, secondary, Duration.ofSeconds(1), 0.1);
+
+        // --- Fast primary is not hedged
+        assertEquals("Primary", hedgedReads.execute(select(2)));
+        assertEquals(new HedgedReads.Metrics(1, 0, 0, 0), hedgedReads.metrics());
+        assertTrue(secondary.statements().isEmpty());
+
+        // --- Slow primary is hedged and cancelled
+        long start = System.nanoTime();
+        assertEquals("Secondary", hedgedReads.execute(select(1)));
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(3).toNanos());
+        assertEquals(new HedgedReads.Metrics(2, 1, 1, 0), hedgedReads.metrics());
+        assertEquals(1, secondary.statements().size());
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+        while (primary.calls("cancel").isEmpty() && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(1, primary.calls("cancel").size());
+    }
+
+    @Test
+    void budgetTest() throws SQLException {
+        HedgedReads hedgedReads = new HedgedReads(primary, secondary, Duration.ofMillis(50), 0);
+
+        // --- Hedges of the initial budget are spent one by one
+        for (int i = 0; i < 10; i++) {
+            assertEquals("Secondary", hedgedReads.execute(select(1)));
+        }
+        assertEquals(new HedgedReads.Metrics(10, 10, 10, 0), hedgedReads.metrics());
+
+        // --- Exhausted budget leaves slow queries to the primary
+        primary.on("SELECT name FROM test WHERE id = 3").columns("name").row("Primary")
+                .latency(Duration.ofMillis(200));
+        assertEquals("Primary", hedgedReads.execute(select(3)));
+        assertEquals(new HedgedReads.Metrics(11, 10, 10, 1), hedgedReads.metrics());
+    }
+
+    @Test
+    void failureTest() {
+        HedgedReads hedgedReads = new HedgedReads(primary, secondary, Duration.ofMillis(50), 0.1);
+
+        // --- Failure of both executions is the failure of the query
+        SQLException exception = assertThrows(SQLException.class, () -> hedgedReads.execute(Query.select()
+                .sql("SELECT missing FROM test")
+                .build(new SingleOutcome<>(String.class))));
+        assertTrue(exception.getMessage().contains("column does not exist"));
+
+        // --- Writes are not hedged
+        assertThrows(UnsupportedOperationException.class, () -> hedgedReads.execute(Query.update()
+                .sql("UPDATE test SET name = ?")
+                .setString("Name")
+                .build(new SingleOutcome<>(Long.class, true))));
+    }
+}
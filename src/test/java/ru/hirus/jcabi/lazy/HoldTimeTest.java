@@ -0,0 +1,86 @@
+package ru.hirus.jcabi.lazy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.jcabi.jdbc.SingleOutcome;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.hirus.jcabi.misc.ScriptedDataSource;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+public class HoldTimeTest {
+
+    private final ScriptedDataSource dataSource = new ScriptedDataSource();
+
+    {
+        dataSource.on("SELECT name").columns("name").row("Name").latency(Duration.ofMillis(100));
+    }
+
+    private static JdbcQuery<String> select() {
+        return Query.select()
+                .sql("SELECT name FROM test")
+                .build(new SingleOutcome<>(String.class));
+    }
+
+    /**
+     * Continuation is ten times longer than the database latency, so timer
+     * jitter and scheduling delays can not move a step across the threshold
+     */
+    private static String call(String name) {
+        // Имитация HTTP-запроса посреди транзакции
+        try {
+            Thread.sleep(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return name;
+    }
+
+    @AfterEach
+    void uninstall() {
+        HoldTime.uninstall();
+    }
+
+    @Test
+    void holdTimeTest() throws SQLException {
+        // Первое выполнение медленное из-за загрузки классов
+        select().execute(dataSource);
+
+        List<HoldTime.Step> steps = new ArrayList<>();
+        HoldTime holdTime = new HoldTime(Duration.ofMillis(500), steps::add).install();
+
+        // --- Slow continuation is flagged with its creation site
+        Transaction<String> slow = new Transaction<>(select())
+                .thenCompose(name -> select().map(HoldTimeTest::call));
+        assertEquals("Name", slow.execute(dataSource));
+
+        assertEquals(1, steps.size());
+        HoldTime.Step step = steps.get(0);
+        assertTrue(step.site().contains("HoldTimeTest.holdTimeTest"), step.site());
+        assertTrue(step.continuation().toMillis() >= 1000, step.toString());
+        assertTrue(step.database().toMillis() >= 100, step.toString());
+        assertTrue(step.database().toMillis() < 1000, step.toString());
+
+        // --- Steps that only wait for the database are not flagged
+        new Transaction<>(select()).then(select()).then(select()).execute(dataSource);
+        assertEquals(1, steps.size());
+
+        HoldTime.Report report = holdTime.report();
+        assertEquals(3, report.sites().size());
+        assertEquals(List.of(report.sites().get(0)), report.flagged());
+        assertEquals(step.site(), report.sites().get(0).site());
+        assertTrue(report.sites().stream().anyMatch(site -> site.steps() == 3 && site.flagged() == 0));
+
+        // --- Uninstalled analyzer does not measure anything
+        HoldTime.uninstall();
+        holdTime.reset();
+        slow.execute(dataSource);
+        assertTrue(holdTime.report().sites().isEmpty());
+        assertEquals(1, steps.size());
+    }
+}
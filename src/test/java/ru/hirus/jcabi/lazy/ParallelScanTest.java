@@ -0,0 +1,105 @@
+package ru.hirus.jcabi.lazy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.jcabi.jdbc.SingleOutcome;
+import org.junit.jupiter.api.Test;
+import ru.hirus.jcabi.misc.ScriptedDataSource;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ParallelScanTest {
+
+    private final ScriptedDataSource dataSource = new ScriptedDataSource();
+
+    {
+        dataSource.on("SELECT pg_export_snapshot").columns("pg_export_snapshot").row("00000003-0000001B-1");
+        dataSource.on("SET TRANSACTION SNAPSHOT");
+        // Сумма ключей диапазона вместо настоящей таблицы
+        dataSource.on("SELECT sum\\(id\\) FROM test", parameters -> new ScriptedDataSource.Response()
+                .columns("sum")
+                .row((long) parameters.get(0) + (long) parameters.get(1)));
+    }
+
+    private static Query<Long> sum(ParallelScan.Range range) {
+        return Query.select()
+                .sql("SELECT sum(id) FROM test WHERE id >= ? AND id < ?")
+                .setLong(range.from())
+                .setLong(range.to())
+                .build(new SingleOutcome<>(Long.class));
+    }
+
+    @Test
+    void rangesTest() {
+        // --- Keys are split into partitions of equal width
+        assertEquals(List.of(new ParallelScan.Range(0, 0, 4), new ParallelScan.Range(1, 4, 8),
+                        new ParallelScan.Range(2, 8, 10)),
+                ParallelScan.keys(0, 10, 3, ParallelScanTest::sum).ranges());
+        assertEquals(2, ParallelScan.keys(5, 7, 4, ParallelScanTest::sum).ranges().size());
+        assertEquals(List.of(), ParallelScan.keys(5, 5, 4, ParallelScanTest::sum).ranges());
+
+        // --- Ranges near the bounds of long do not overflow
+        assertEquals(List.of(new ParallelScan.Range(0, Long.MAX_VALUE - 5, Long.MAX_VALUE - 2),
+                        new ParallelScan.Range(1, Long.MAX_VALUE - 2, Long.MAX_VALUE)),
+                ParallelScan.keys(Long.MAX_VALUE - 5, Long.MAX_VALUE, 2, ParallelScanTest::sum).ranges());
+        assertEquals(List.of(new ParallelScan.Range(0, Long.MIN_VALUE, Long.MAX_VALUE)),
+                ParallelScan.keys(Long.MIN_VALUE, Long.MAX_VALUE, 1, ParallelScanTest::sum).ranges());
+        assertEquals(List.of(new ParallelScan.Range(0, Long.MIN_VALUE, 0),
+                        new ParallelScan.Range(1, 0, Long.MAX_VALUE)),
+                ParallelScan.keys(Long.MIN_VALUE, Long.MAX_VALUE, 2, ParallelScanTest::sum).ranges());
+        List<ParallelScan.Range> wide = ParallelScan.keys(-10, Long.MAX_VALUE, 3, ParallelScanTest::sum).ranges();
+        assertEquals(3, wide.size());
+        assertEquals(Long.MAX_VALUE, wide.get(2).to());
+
+        // --- The last block range is open
+        List<ParallelScan.Range> blocks = ParallelScan.ctid(100, 4, ParallelScanTest::sum).ranges();
+        assertEquals(4, blocks.size());
+        assertEquals("(75,0)", blocks.get(3).fromTid());
+        assertEquals("(4294967295,0)", blocks.get(3).toTid());
+
+        assertThrows(IllegalArgumentException.class, () -> ParallelScan.keys(0, 10, 0, ParallelScanTest::sum));
+    }
+
+    @Test
+    void scanTest() throws SQLException {
+        ParallelScan<Long> scan = ParallelScan.keys(0, 100, 4, ParallelScanTest::sum);
+
+        // --- Partitions are executed on their own connections
+        assertEquals(List.of(25L, 75L, 125L, 175L), scan.all(dataSource));
+        assertEquals(4, dataSource.calls("getConnection").size());
+        assertEquals(4, dataSource.calls("commit").size());
+        assertEquals(0, dataSource.open());
+
+        List<Long> consumed = new ArrayList<>();
+        scan.forEach(dataSource, consumed::add);
+        assertEquals(400, consumed.stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    void sharedSnapshotTest() throws SQLException {
+        ParallelScan<Long> scan = ParallelScan.keys(0, 100, 4, ParallelScanTest::sum).sharedSnapshot();
+
+        // --- Every partition imports the snapshot of one more connection
+        assertEquals(400L, (long) scan.execute(dataSource, sums -> sums.stream().mapToLong(Long::longValue).sum()));
+        assertEquals(5, dataSource.calls("getConnection").size());
+        assertEquals(List.of("SELECT pg_export_snapshot()"), dataSource.statements().stream()
+                .filter(sql -> sql.contains("pg_export_snapshot")).toList());
+        assertEquals(4, dataSource.statements().stream()
+                .filter(sql -> sql.equals("SET TRANSACTION SNAPSHOT '00000003-0000001B-1'")).count());
+        assertEquals(0, dataSource.open());
+
+        // --- Failure of one partition fails the scan and releases all connections
+        ScriptedDataSource failing = new ScriptedDataSource();
+        failing.on("SELECT pg_export_snapshot").columns("pg_export_snapshot").row("00000003-0000001B-1");
+        failing.on("SET TRANSACTION SNAPSHOT");
+        failing.on("SELECT sum\\(id\\) FROM test", parameters -> (long) parameters.get(0) == 50
+                ? new ScriptedDataSource.Response().fail("53100", "could not extend file")
+                : new ScriptedDataSource.Response().columns("sum").row(0L));
+        assertThrows(SQLException.class, () -> scan.all(failing));
+        assertEquals(3, failing.calls("commit").size());
+        assertEquals(0, failing.open());
+    }
+}
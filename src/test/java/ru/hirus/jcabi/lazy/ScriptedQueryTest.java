@@ -0,0 +1,144 @@
+package ru.hirus.jcabi.lazy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static ru.hirus.jcabi.misc.TestRecordQueries.insert;
+import static ru.hirus.jcabi.misc.TestRecordQueries.select;
+import static ru.hirus.jcabi.misc.TestRecordTransactions.insertSelect;
+
+import com.jcabi.jdbc.SingleOutcome;
+import org.javatuples.Pair;
+import org.junit.jupiter.api.Test;
+import ru.hirus.jcabi.lazy.forcomprehension.Do;
+import ru.hirus.jcabi.misc.ScriptedDataSource;
+import ru.hirus.jcabi.misc.TestRecord;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+public class ScriptedQueryTest {
+
+    private final ScriptedDataSource dataSource = new ScriptedDataSource();
+
+    {
+        dataSource.on("INSERT INTO test").generatedKeys(1L);
+        dataSource.on("SELECT name FROM test WHERE id = \\?", parameters -> new ScriptedDataSource.Response()
+                .columns("name")
+                .row("Name" + parameters.get(0)));
+    }
+
+    @Test
+    void transactionTest() throws SQLException {
+        // --- Steps are executed on one connection and committed once
+        TestRecord testRecord = insertSelect("Name").execute(dataSource);
+        assertEquals(new TestRecord(1, "Name1"), testRecord);
+
+        assertEquals(1, dataSource.calls("getConnection").size());
+        assertEquals(List.of(List.of("Name"), List.of(1L)), dataSource.calls().stream()
+                .filter(call -> call.sql() != null)
+                .map(ScriptedDataSource.Call::parameters)
+                .toList());
+        assertEquals(1, dataSource.calls("commit").size());
+        assertEquals(0, dataSource.open());
+    }
+
+    @Test
+    void sequenceTest() throws SQLException {
+        List<String> names = new Query.Sequence<>(List.of(select(1), select(2), select(3))).execute(dataSource);
+
+        assertEquals(List.of("Name1", "Name2", "Name3"), names);
+        assertEquals(1, dataSource.calls("getConnection").size());
+        assertEquals(1, dataSource.calls("commit").size());
+    }
+
+    @Test
+    void doTest() throws SQLException {
+        Pair<Long, String> pair = Do.of(insert("Name"), id -> select(id)).execute(dataSource);
+
+        assertEquals(Pair.with(1L, "Name1"), pair);
+        assertEquals(1, dataSource.calls("commit").size());
+    }
+
+    @Test
+    void releaseTest() throws SQLException {
+        // --- Pure queries do not acquire connections
+        assertEquals(4, (int) Query.pure("Name").map(String::length).execute(dataSource));
+        assertEquals(0, dataSource.calls().size());
+
+        // --- Trailing mappers are applied after the connection is returned
+        List<Integer> committed = new ArrayList<>();
+        Function<Object, Integer> commits = result -> {
+            committed.add(dataSource.open() == 0 ? dataSource.calls("commit").size() : -1);
+            return committed.size();
+        };
+        select(1).map(commits).execute(dataSource);
+        insert("Name").then(select(1)).map(commits).map(commits).execute(dataSource);
+        new Query.Sequence<>(List.of(select(1), select(2))).map(commits).execute(dataSource);
+        assertEquals(List.of(1, 2, 2, 3), committed);
+
+        // --- Mappers between database steps are applied in the transaction
+        select(1).map(commits).then(select(2)).execute(dataSource);
+        assertEquals(-1, (int) committed.get(4));
+        assertEquals(4, dataSource.calls("commit").size());
+    }
+
+    @Test
+    void readOnlyTest() throws SQLException {
+        JdbcQuery<String> query = Query.select()
+                .sql("SELECT name FROM test WHERE id = ?")
+                .setLong(1)
+                .build(new SingleOutcome<>(String.class));
+
+        // --- Declared select is executed in autocommit mode without the commit
+        assertEquals("Name1", query.readOnly().execute(dataSource));
+        assertEquals(0, dataSource.calls("commit").size());
+        assertEquals(List.of(List.of(true), List.of(false)), dataSource.calls("setReadOnly").stream()
+                .map(ScriptedDataSource.Call::parameters)
+                .toList());
+        assertEquals(0, dataSource.open());
+
+        // --- Selects are not read-only by default, transactions ignore the declaration
+        dataSource.clear();
+        query.execute(dataSource);
+        query.readOnly().then(select(2)).execute(dataSource);
+        assertEquals(2, dataSource.calls("commit").size());
+        assertEquals(0, dataSource.calls("setReadOnly").size());
+        assertThrows(UnsupportedOperationException.class, () -> Query.insert()
+                .sql("INSERT INTO test (name) VALUES (?)")
+                .set("Name")
+                .build(new SingleOutcome<>(Long.class))
+                .readOnly());
+    }
+
+    @Test
+    void failureTest() {
+        dataSource.on("UPDATE test").fail("23505", "duplicate key");
+
+        // --- Failed step rolls back the whole transaction
+        SQLException exception = assertThrows(SQLException.class, () -> insert("Name")
+                .then(Query.update()
+                        .sql("UPDATE test SET name = ? WHERE id = ?")
+                        .set("Name")
+                        .set(1L)
+                        .build(new SingleOutcome<>(Long.class, true)))
+                .execute(dataSource));
+
+        SQLException cause = exception.getCause() instanceof SQLException sqlException ? sqlException : exception;
+        assertEquals("23505", cause.getSQLState());
+        assertEquals(1, dataSource.calls("rollback").size());
+        assertEquals(0, dataSource.calls("commit").size());
+        assertEquals(0, dataSource.open());
+    }
+
+    @Test
+    void unscriptedTest() {
+        assertThrows(SQLException.class, () -> Query.select()
+                .sql("SELECT 1")
+                .build(new SingleOutcome<>(Long.class))
+                .execute(dataSource));
+
+        assertEquals(List.of("SELECT 1"), dataSource.statements());
+    }
+}
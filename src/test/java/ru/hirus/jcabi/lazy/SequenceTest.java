@@ -7,7 +7,9 @@ import org.junit.jupiter.api.Test;
 
 import javax.sql.DataSource;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.LongStream;
 
@@ -31,4 +33,35 @@ public class SequenceTest {
         List<Long> sequenceLongs = sequence.execute(dataSource);
         assertEquals(longs, sequenceLongs);
     }
+
+    @Test
+    void traverseTest() throws SQLException {
+        // --- Queries are initialized during the execution
+        DataSource dataSource = new UrlSource("...");
+
+        AtomicInteger initialized = new AtomicInteger();
+        Query<List<Long>> traverse = Query.traverse(LongStream.rangeClosed(1, 10).iterator(), l -> {
+            initialized.incrementAndGet();
+            return Query.pure(l * 2);
+        });
+        assertEquals(0, initialized.get());
+
+        List<Long> longs = traverse.execute(dataSource);
+        assertEquals(LongStream.rangeClosed(1, 10).map(l -> l * 2).boxed().toList(), longs);
+        assertEquals(10, initialized.get());
+    }
+
+    @Test
+    void foldLeftTest() throws SQLException {
+        // --- Results are reduced instead of being collected
+        DataSource dataSource = new UrlSource("...");
+
+        long sum = Query.foldLeft(LongStream.rangeClosed(1, 1_000_000).iterator(), Query::pure, 0L, Long::sum)
+                .execute(dataSource);
+        assertEquals(500_000_500_000L, sum);
+
+        List<String> consumed = new ArrayList<>();
+        Query.forEach(List.of("a", "b").iterator(), Query::pure, consumed::add).execute(dataSource);
+        assertEquals(List.of("a", "b"), consumed);
+    }
 }
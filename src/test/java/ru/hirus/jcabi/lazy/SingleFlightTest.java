@@ -0,0 +1,177 @@
+package ru.hirus.jcabi.lazy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.jcabi.jdbc.SingleOutcome;
+import org.junit.jupiter.api.Test;
+import ru.hirus.jcabi.misc.ScriptedDataSource;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class SingleFlightTest {
+
+    private final ScriptedDataSource dataSource = new ScriptedDataSource();
+    private final SingleFlight singleFlight = new SingleFlight();
+
+    /**
+     * Counted down by every execution that reaches the database
+     */
+    private volatile CountDownLatch executing = new CountDownLatch(1);
+
+    /**
+     * Holds executions in the database until it is counted down
+     */
+    private volatile CountDownLatch release = new CountDownLatch(1);
+
+    {
+        dataSource.on("SELECT name FROM test WHERE id = \\?", parameters -> {
+            hold();
+            return new ScriptedDataSource.Response()
+                    .columns("name")
+                    .row("Name" + parameters.get(0));
+        });
+        dataSource.on("SELECT broken", parameters -> {
+            hold();
+            throw new StackOverflowError();
+        });
+        dataSource.on("SELECT missing", parameters -> {
+            hold();
+            return new ScriptedDataSource.Response().fail("42703", "column does not exist");
+        });
+    }
+
+    private void hold() {
+        executing.countDown();
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void awaitWaiting(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (singleFlight.waiting() < count) {
+            assertTrue(System.nanoTime() < deadline, "Only " + singleFlight.waiting() + " queries wait");
+            Thread.sleep(1);
+        }
+    }
+
+    private static JdbcQuery<String> select(long id) {
+        return Query.select()
+                .sql("SELECT name FROM test WHERE id = ?")
+                .setLong(id)
+                .build(new SingleOutcome<>(String.class, true));
+    }
+
+    @Test
+    void singleFlightTest() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            // --- Identical queries that arrive during the execution share it
+            List<Future<Object>> results = new ArrayList<>();
+            results.add(executor.submit(() -> singleFlight.execute(select(1), dataSource)));
+            assertTrue(executing.await(5, TimeUnit.SECONDS));
+
+            for (int i = 1; i < 16; i++) {
+                JdbcQuery<?> query = i % 2 == 0 ? select(1) : select(1).map(String::length);
+                results.add(executor.submit(() -> singleFlight.execute(query, dataSource)));
+            }
+            awaitWaiting(15);
+            release.countDown();
+
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(i % 2 == 0 ? "Name1" : 5, results.get(i).get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, dataSource.statements().size());
+            assertEquals(0, singleFlight.inFlight());
+            assertEquals(0, singleFlight.waiting());
+
+            // --- Completed results are not retained
+            assertEquals("Name1", singleFlight.execute(select(1), dataSource));
+            assertEquals(2, dataSource.statements().size());
+
+            // --- Different arguments are executed separately at the same time
+            executing = new CountDownLatch(2);
+            release = new CountDownLatch(1);
+            CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> execute(select(1)), executor);
+            CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> execute(select(2)), executor);
+            assertTrue(executing.await(5, TimeUnit.SECONDS));
+            release.countDown();
+
+            assertEquals("Name1", first.get(5, TimeUnit.SECONDS));
+            assertEquals("Name2", second.get(5, TimeUnit.SECONDS));
+            assertEquals(4, dataSource.statements().size());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void failureTest() throws Exception {
+        JdbcQuery<String> missing = Query.select()
+                .sql("SELECT missing FROM test")
+                .build(new SingleOutcome<>(String.class));
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> execute(missing));
+        assertTrue(executing.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> execute(missing));
+        awaitWaiting(1);
+        release.countDown();
+
+        // --- Every caller receives the failure
+        assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, dataSource.statements().size());
+        assertEquals(0, singleFlight.inFlight());
+
+        // --- Writes are not deduplicated
+        assertThrows(UnsupportedOperationException.class, () -> singleFlight.execute(Query.update()
+                .sql("UPDATE test SET name = ?")
+                .setString("Name")
+                .build(new SingleOutcome<>(Long.class, true)), dataSource));
+    }
+
+    @Test
+    void errorTest() throws Exception {
+        JdbcQuery<String> broken = Query.select()
+                .sql("SELECT broken FROM test")
+                .build(new SingleOutcome<>(String.class));
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> execute(broken));
+        assertTrue(executing.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> execute(broken));
+        awaitWaiting(1);
+        release.countDown();
+
+        // --- Error of the leader is passed to waiting callers and the flight is removed
+        ExecutionException leader = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        assertTrue(leader.getCause() instanceof StackOverflowError);
+        ExecutionException follower = assertThrows(ExecutionException.class,
+                () -> second.get(5, TimeUnit.SECONDS));
+        SQLException cause = (SQLException) follower.getCause().getCause();
+        assertTrue(cause.getCause() instanceof StackOverflowError);
+        assertEquals(0, singleFlight.inFlight());
+        assertEquals(0, singleFlight.waiting());
+    }
+
+    private String execute(JdbcQuery<String> query) {
+        try {
+            return singleFlight.execute(query, dataSource);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
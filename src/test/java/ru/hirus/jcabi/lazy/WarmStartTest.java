@@ -0,0 +1,173 @@
+package ru.hirus.jcabi.lazy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.jcabi.jdbc.ListOutcome;
+import com.jcabi.jdbc.SingleOutcome;
+import org.junit.jupiter.api.Test;
+import ru.hirus.jcabi.misc.ScriptedDataSource;
+import ru.hirus.jcabi.outcome.RowCodec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class WarmStartTest {
+
+    private record Country(long id, String name) {
+    }
+
+    private static final RowCodec<Country> CODEC = new RowCodec<>() {
+        @Override
+        public void write(Country row, DataOutput output) throws IOException {
+            output.writeLong(row.id());
+            output.writeUTF(row.name());
+        }
+
+        @Override
+        public Country read(DataInput input) throws IOException {
+            return new Country(input.readLong(), input.readUTF());
+        }
+    };
+
+    private final ScriptedDataSource dataSource = new ScriptedDataSource();
+    private volatile String version = "1";
+    private volatile List<String> names = List.of("Russia", "Serbia");
+
+    {
+        dataSource.on("SELECT max", parameters -> new ScriptedDataSource.Response().columns("version").row(version));
+        dataSource.on("FROM missing", parameters -> new ScriptedDataSource.Response()
+                .fail("42P01", "relation does not exist"));
+        dataSource.on("FROM country", parameters -> {
+            ScriptedDataSource.Response response = new ScriptedDataSource.Response().columns("id", "name");
+            for (int i = 0; i < names.size(); i++) {
+                response.row((long) i + 1, names.get(i));
+            }
+            return response;
+        });
+    }
+
+    private WarmStart.Table<Country> countries;
+
+    private WarmStart warmStart(Path file) {
+        WarmStart warmStart = new WarmStart(dataSource, file, Query.select()
+                .sql("SELECT max(updated_at)::text FROM country")
+                .build(new SingleOutcome<>(String.class)));
+        countries = warmStart.register("country", Query.select()
+                .sql("SELECT id, name FROM country")
+                .build(new ListOutcome<>(resultSet -> new Country(resultSet.getLong(1), resultSet.getString(2)))),
+                CODEC);
+        return warmStart;
+    }
+
+    private long loads() {
+        return dataSource.statements().stream().filter(sql -> sql.startsWith("SELECT id")).count();
+    }
+
+    @Test
+    void warmStartTest() throws Exception {
+        Path file = Files.createTempDirectory("warm-start").resolve("reference.snapshot");
+
+        // --- Without the snapshot rows are loaded from the database
+        WarmStart first = warmStart(file);
+        assertEquals(WarmStart.Origin.DATABASE, first.start());
+        assertEquals(List.of(new Country(1, "Russia"), new Country(2, "Serbia")), countries.rows());
+        assertTrue(Files.exists(file));
+        assertEquals(1, loads());
+
+        // --- Version and rows are read from one snapshot
+        assertEquals(List.of(Connection.TRANSACTION_REPEATABLE_READ), dataSource.calls("setTransactionIsolation")
+                .get(0).parameters());
+        assertEquals(1, dataSource.calls("commit").size());
+
+        // --- The next start reads the snapshot and only checks the version
+        WarmStart second = warmStart(file);
+        assertEquals(WarmStart.Origin.SNAPSHOT, second.start());
+        assertEquals(List.of(new Country(1, "Russia"), new Country(2, "Serbia")), countries.rows());
+        assertFalse(second.revalidation().get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads());
+
+        // --- Changed version reloads rows and rewrites the snapshot
+        version = "2";
+        names = List.of("Russia", "Serbia", "Armenia");
+        assertTrue(second.revalidate().get(5, TimeUnit.SECONDS));
+        assertEquals("2", second.version());
+        assertEquals(3, countries.rows().size());
+        assertEquals(2, loads());
+
+        WarmStart third = warmStart(file);
+        assertEquals(WarmStart.Origin.SNAPSHOT, third.start());
+        assertEquals(new Country(3, "Armenia"), countries.rows().get(2));
+        assertFalse(third.revalidation().get(5, TimeUnit.SECONDS));
+        assertThrows(IllegalStateException.class, () -> third.register("other", Query.select()
+                .sql("SELECT id FROM other")
+                .build(new ListOutcome<>(resultSet -> resultSet.getLong(1))), null));
+    }
+
+    @Test
+    void invalidTest() throws IOException, SQLException {
+        Path file = Files.createTempDirectory("warm-start").resolve("reference.snapshot");
+        warmStart(file).start();
+
+        // --- Corrupted snapshot is ignored
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(file, bytes);
+        assertEquals(WarmStart.Origin.DATABASE, warmStart(file).start());
+
+        // --- Snapshot of other queries is ignored
+        WarmStart other = new WarmStart(dataSource, file, Query.select()
+                .sql("SELECT max(updated_at)::text FROM country")
+                .build(new SingleOutcome<>(String.class)));
+        other.register("country", Query.select()
+                .sql("SELECT id, name FROM country ORDER BY id")
+                .build(new ListOutcome<>(resultSet -> new Country(resultSet.getLong(1), resultSet.getString(2)))),
+                CODEC);
+        assertEquals(WarmStart.Origin.DATABASE, other.start());
+        assertEquals(3, loads());
+    }
+
+    @Test
+    void emptyTest() throws Exception {
+        Path file = Files.createTempDirectory("warm-start").resolve("reference.snapshot");
+        version = null;
+        names = List.of();
+
+        // --- Version of the empty table is null
+        assertEquals(WarmStart.Origin.DATABASE, warmStart(file).start());
+        assertTrue(countries.rows().isEmpty());
+
+        WarmStart second = warmStart(file);
+        assertEquals(WarmStart.Origin.SNAPSHOT, second.start());
+        assertNull(second.version());
+        assertFalse(second.revalidation().get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void failureTest() throws IOException {
+        Path file = Files.createTempDirectory("warm-start").resolve("reference.snapshot");
+        WarmStart warmStart = new WarmStart(dataSource, file, Query.select()
+                .sql("SELECT max(updated_at)::text FROM country")
+                .build(new SingleOutcome<>(String.class)));
+        warmStart.register("missing", Query.select()
+                .sql("SELECT id, name FROM missing")
+                .build(new ListOutcome<>(resultSet -> new Country(resultSet.getLong(1), resultSet.getString(2)))),
+                CODEC);
+
+        // --- Failed load restores the isolation of the connection
+        assertThrows(SQLException.class, warmStart::start);
+        List<ScriptedDataSource.Call> isolations = dataSource.calls("setTransactionIsolation");
+        assertEquals(List.of(Connection.TRANSACTION_READ_COMMITTED), isolations.get(isolations.size() - 1).parameters());
+        assertFalse(dataSource.calls("rollback").isEmpty());
+    }
+}
@@ -0,0 +1,39 @@
+package ru.hirus.jcabi.lazy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.jcabi.jdbc.Outcome;
+import org.junit.jupiter.api.Test;
+import ru.hirus.jcabi.misc.ScriptedDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+
+public class WarmUpFailureTest {
+
+    @Test
+    void connectionFailureTest() throws SQLException {
+        ScriptedDataSource scripted = new ScriptedDataSource();
+        Connection broken = scripted.getConnection();
+        broken.close();
+        Queue<Connection> connections = new ArrayDeque<>(List.of(scripted.getConnection(), broken,
+                scripted.getConnection()));
+        DataSource dataSource = (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(),
+                new Class<?>[]{DataSource.class}, (proxy, method, args) -> connections.remove());
+
+        WarmUp.Report report = new WarmUp()
+                .register(Query.select().sql("SELECT name FROM test WHERE id = ?").set(1).build(Outcome.VOID))
+                .run(dataSource, 3);
+
+        // --- Failure of the statement on one connection is reported with its index
+        assertEquals(3, report.connections());
+        assertEquals(1, report.failures().size());
+        assertEquals(1, report.failures().get(0).connection());
+        assertEquals("08003", report.failures().get(0).cause().getSQLState());
+    }
+}
@@ -0,0 +1,49 @@
+package ru.hirus.jcabi.lazy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static ru.hirus.jcabi.misc.TestRecordQueries.createTable;
+import static ru.hirus.jcabi.misc.TestRecordQueries.insert;
+import static ru.hirus.jcabi.misc.TestRecordQueries.select;
+
+import com.jcabi.jdbc.SingleOutcome;
+import org.junit.jupiter.api.Test;
+import ru.hirus.jcabi.misc.PostgresDatabaseTestTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+public class WarmUpTest extends PostgresDatabaseTestTemplate {
+
+    @Test
+    void warmUpTest() throws SQLException {
+        // --- Create table
+        DataSource dataSource = factoryDataSource();
+
+        createTable().execute(dataSource);
+
+        // --- Warm-up
+        JdbcQuery<String> invalid = Query.select()
+                .sql("SELECT missing FROM test WHERE id = ?")
+                .set(1)
+                .build(new SingleOutcome<>(String.class, true));
+
+        WarmUp.Report report = new WarmUp()
+                .register((JdbcQuery<Long>) insert("Name"), 3)
+                .register((JdbcQuery<String>) select(1))
+                .register(invalid)
+                .run(dataSource, 1);
+
+        assertEquals(1, report.connections());
+        assertEquals(3, report.statements());
+        assertEquals(3, report.executions());
+        assertFalse(report.successful());
+        assertEquals(1, report.failures().size());
+        assertEquals(invalid.sql(), report.failures().get(0).sql());
+        assertEquals(0, report.failures().get(0).connection());
+
+        // --- Representative executions are rolled back
+        assertNull(select(1).execute(dataSource));
+    }
+}
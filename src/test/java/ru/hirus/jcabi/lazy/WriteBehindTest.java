@@ -0,0 +1,220 @@
+package ru.hirus.jcabi.lazy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.jcabi.jdbc.Outcome;
+import org.junit.jupiter.api.Test;
+import ru.hirus.jcabi.misc.FactorySource;
+import ru.hirus.jcabi.misc.ScriptedDataSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class WriteBehindTest {
+
+    private final ScriptedDataSource dataSource = new ScriptedDataSource();
+
+    {
+        dataSource.on("INSERT INTO audit").updateCount(1);
+        dataSource.on("UPDATE audit").updateCount(1);
+        dataSource.on("INSERT INTO broken").fail("23505", "Duplicate key");
+        dataSource.on("INSERT INTO poisoned").deferred("23503", "Foreign key violation");
+        dataSource.on("INSERT INTO failing", parameters -> {
+            throw new IllegalStateException("Driver bug");
+        });
+        dataSource.on("INSERT INTO overflowing", parameters -> {
+            throw new StackOverflowError();
+        });
+    }
+
+    private static JdbcQuery<Void> insert(long id, String name) {
+        return Query.insert()
+                .sql("INSERT INTO audit (id, name, at) VALUES (?, ?, ?)")
+                .setLong(id)
+                .setString(name)
+                .setTimestamp(new Timestamp(1_000))
+                .build(Outcome.VOID);
+    }
+
+    private static List<List<Object>> inserts(ScriptedDataSource dataSource) {
+        return dataSource.calls().stream()
+                .filter(call -> call.method().startsWith("execute") && call.sql().startsWith("INSERT INTO audit"))
+                .map(ScriptedDataSource.Call::parameters)
+                .toList();
+    }
+
+    @Test
+    void writeBehindTest() throws IOException, SQLException {
+        Path log = Files.createTempDirectory("write-behind").resolve("audit.log");
+        List<WriteBehind.Failure> failures = new CopyOnWriteArrayList<>();
+
+        try (WriteBehind writeBehind = new WriteBehind(dataSource, log, 4096, 10, Duration.ofMillis(10),
+                failures::add)) {
+            // --- Queries are executed in background after the acknowledgement
+            for (int i = 1; i <= 25; i++) {
+                writeBehind.submit(insert(i, "Name" + i));
+            }
+            writeBehind.submit(Query.insert().sql("INSERT INTO broken VALUES (?)").set(1).build(Outcome.VOID));
+            writeBehind.submit(Query.update().sql("UPDATE audit SET name = ? WHERE id = ?")
+                    .set(null, 1L).build(Outcome.VOID));
+            assertTrue(writeBehind.flush(Duration.ofSeconds(5)));
+
+            List<List<Object>> inserts = inserts(dataSource);
+            assertEquals(25, inserts.size());
+            assertEquals(List.of(25L, "Name25", new Timestamp(1_000)), inserts.get(24));
+            assertTrue(dataSource.statements().contains("UPDATE audit SET name = ? WHERE id = ?"));
+
+            // --- Failed query is dropped without other queries of the batch
+            assertEquals(1, failures.size());
+            assertEquals("INSERT INTO broken VALUES (?)", failures.get(0).sql());
+            assertEquals(List.of(1), failures.get(0).arguments());
+
+            WriteBehind.Metrics metrics = writeBehind.metrics();
+            assertEquals(0, metrics.backlog());
+            assertEquals(26, metrics.executed());
+            assertEquals(1, metrics.failed());
+
+            // --- Select queries are not accepted
+            assertThrows(IllegalArgumentException.class, () -> writeBehind.submit(Query.select()
+                    .sql("SELECT 1").build(Outcome.VOID)));
+        }
+    }
+
+    @Test
+    void replayTest() throws IOException, SQLException {
+        Path log = Files.createTempDirectory("write-behind").resolve("audit.log");
+        FactorySource unavailable = new FactorySource(() -> {
+            throw new SQLException("Database is down", "08001");
+        });
+
+        // --- Log is full while the database is down
+        try (WriteBehind writeBehind = new WriteBehind(unavailable, log, 1024, 10, Duration.ofMillis(10),
+                failure -> {
+                })) {
+            int accepted = 0;
+            while (writeBehind.offer(insert(accepted + 1, "Name" + (accepted + 1)), Duration.ofMillis(10))) {
+                accepted++;
+            }
+            assertTrue(accepted > 5, String.valueOf(accepted));
+            assertFalse(writeBehind.flush(Duration.ofMillis(50)));
+            assertEquals(accepted, writeBehind.metrics().backlog());
+            assertTrue(writeBehind.metrics().retries() > 0);
+        }
+
+        // --- Acknowledged queries are executed after the restart in order
+        try (WriteBehind writeBehind = new WriteBehind(dataSource, log, 1024, 4, Duration.ofMillis(10),
+                failure -> {
+                })) {
+            long backlog = writeBehind.metrics().backlog();
+            assertTrue(writeBehind.flush(Duration.ofSeconds(5)));
+
+            List<List<Object>> inserts = inserts(dataSource);
+            assertEquals(backlog, inserts.size());
+            for (int i = 0; i < inserts.size(); i++) {
+                assertEquals(i + 1L, inserts.get(i).get(0));
+            }
+
+            // --- Ring log wraps around its end
+            for (int i = 1; i <= 100; i++) {
+                writeBehind.submit(insert(1000 + i, "Wrapped"));
+            }
+            assertTrue(writeBehind.flush(Duration.ofSeconds(5)));
+            assertEquals(backlog + 100, inserts(dataSource).size());
+        }
+
+        // --- Flushed queries are not executed again
+        dataSource.clear();
+        try (WriteBehind writeBehind = new WriteBehind(dataSource, log, 1024, 4, Duration.ofMillis(10),
+                failure -> {
+                })) {
+            assertEquals(0, writeBehind.metrics().backlog());
+        }
+        assertTrue(inserts(dataSource).isEmpty());
+    }
+
+    @Test
+    void poisonTest() throws IOException, SQLException {
+        Path log = Files.createTempDirectory("write-behind").resolve("audit.log");
+        List<WriteBehind.Failure> failures = new CopyOnWriteArrayList<>();
+
+        try (WriteBehind writeBehind = new WriteBehind(dataSource, log, 4096, 10, Duration.ofMillis(1),
+                failures::add)) {
+            for (int i = 1; i <= 20; i++) {
+                writeBehind.submit(insert(i, "Name" + i));
+                if (i == 5) {
+                    writeBehind.submit(Query.insert().sql("INSERT INTO poisoned VALUES (?)").set(5)
+                            .build(Outcome.VOID));
+                }
+                if (i == 8) {
+                    writeBehind.submit(Query.insert().sql("INSERT INTO failing VALUES (?)").set(8)
+                            .build(Outcome.VOID));
+                }
+            }
+
+            // --- Query that fails the commit is found and dropped, the log is not stalled
+            assertTrue(writeBehind.flush(Duration.ofSeconds(5)));
+            assertEquals(2, failures.size());
+            assertTrue(failures.stream().anyMatch(failure -> failure.sql().equals("INSERT INTO poisoned VALUES (?)")
+                    && failure.exception().getSQLState().equals("23503")));
+            assertTrue(failures.stream().anyMatch(failure -> failure.sql().equals("INSERT INTO failing VALUES (?)")
+                    && failure.exception().getCause() instanceof IllegalStateException));
+
+            WriteBehind.Metrics metrics = writeBehind.metrics();
+            assertEquals(0, metrics.backlog());
+            assertEquals(20, metrics.executed());
+            assertEquals(2, metrics.failed());
+            assertTrue(metrics.retries() > 0);
+        }
+    }
+
+    @Test
+    void listenerTest() throws IOException, SQLException {
+        Path log = Files.createTempDirectory("write-behind").resolve("audit.log");
+        List<WriteBehind.Failure> failures = new CopyOnWriteArrayList<>();
+
+        try (WriteBehind writeBehind = new WriteBehind(dataSource, log, 4096, 10, Duration.ofMillis(1),
+                failure -> {
+                    failures.add(failure);
+                    throw new IllegalStateException("Listener bug");
+                })) {
+            for (int i = 1; i <= 5; i++) {
+                writeBehind.submit(insert(i, "Name" + i));
+            }
+            writeBehind.submit(Query.insert().sql("INSERT INTO broken VALUES (?)").set(1).build(Outcome.VOID));
+            writeBehind.submit(Query.insert().sql("INSERT INTO overflowing VALUES (?)").set(2)
+                    .build(Outcome.VOID));
+            assertTrue(writeBehind.flush(Duration.ofSeconds(5)));
+
+            // --- Failing listener and Error of the query do not stop the worker
+            for (int i = 6; i <= 10; i++) {
+                writeBehind.submit(insert(i, "Name" + i));
+            }
+            assertTrue(writeBehind.flush(Duration.ofSeconds(5)));
+            assertEquals(2, failures.size());
+            assertTrue(failures.get(1).exception().getCause() instanceof StackOverflowError);
+
+            WriteBehind.Metrics metrics = writeBehind.metrics();
+            assertEquals(0, metrics.backlog());
+            assertEquals(10, metrics.executed());
+            assertEquals(2, metrics.failed());
+        }
+
+        // --- Batch committed before the failing listener is not executed again
+        dataSource.clear();
+        try (WriteBehind writeBehind = new WriteBehind(dataSource, log, 4096, 10, Duration.ofMillis(1),
+                failure -> {
+                })) {
+            assertEquals(0, writeBehind.metrics().backlog());
+        }
+        assertTrue(inserts(dataSource).isEmpty());
+    }
+}
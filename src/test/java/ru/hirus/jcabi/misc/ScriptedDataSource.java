@@ -0,0 +1,699 @@
+package ru.hirus.jcabi.misc;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * In-process {@link DataSource} that answers statements using scripted
+ * responses instead of a database and records every call
+ * <br>
+ * Responses are chosen by the first registered pattern that is found
+ * in the SQL. Statements without a matching pattern fail
+ * with SQLState {@code 42000}
+ * <br>
+ * Latency is injected into statement execution and can be interrupted
+ * by {@link Statement#cancel()}, which fails the execution with
+ * SQLState {@code 57014}
+ */
+public final class ScriptedDataSource implements DataSource {
+
+    private final List<Rule> rules;
+    private final Map<String, Optional<Rule>> matches;
+    private final List<Call> calls;
+    private final AtomicInteger open;
+    private volatile boolean recording;
+
+    public ScriptedDataSource() {
+        this.rules = new CopyOnWriteArrayList<>();
+        this.matches = new ConcurrentHashMap<>();
+        this.calls = new CopyOnWriteArrayList<>();
+        this.open = new AtomicInteger();
+        this.recording = true;
+    }
+
+    /**
+     * Registers response for statements which SQL contains provided pattern
+     *
+     * @return response to configure
+     */
+    public Response on(String regex) {
+        Response response = new Response();
+        on(regex, parameters -> response);
+        return response;
+    }
+
+    /**
+     * Registers function that creates response for statements
+     * which SQL contains provided pattern using bound parameters
+     *
+     * @return this data source
+     */
+    public ScriptedDataSource on(String regex, Function<List<Object>, Response> responses) {
+        rules.add(new Rule(Pattern.compile(regex, Pattern.DOTALL), responses));
+        matches.clear();
+        return this;
+    }
+
+    /**
+     * Disables or enables recording of calls, e.g. for benchmarks
+     *
+     * @return this data source
+     */
+    public ScriptedDataSource recording(boolean recording) {
+        this.recording = recording;
+        return this;
+    }
+
+    /**
+     * @return all recorded calls in order
+     */
+    public List<Call> calls() {
+        return List.copyOf(calls);
+    }
+
+    /**
+     * @return recorded calls with provided method name
+     */
+    public List<Call> calls(String method) {
+        return calls.stream().filter(call -> call.method().equals(method)).toList();
+    }
+
+    /**
+     * @return SQL of executed statements in order
+     */
+    public List<String> statements() {
+        return calls.stream().filter(call -> call.sql() != null && call.method().startsWith("execute"))
+                .map(Call::sql).toList();
+    }
+
+    /**
+     * @return count of connections that are not closed yet
+     */
+    public int open() {
+        return open.get();
+    }
+
+    public void clear() {
+        calls.clear();
+    }
+
+    @Override
+    public Connection getConnection() {
+        record("getConnection", null, List.of());
+        open.incrementAndGet();
+        return proxy(Connection.class, new ConnectionHandler());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) {
+        return getConnection();
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return 0;
+    }
+
+    @Override
+    public Logger getParentLogger() {
+        return Logger.getLogger(ScriptedDataSource.class.getName());
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    private void record(String method, String sql, List<Object> parameters) {
+        if (recording) {
+            calls.add(new Call(method, sql, parameters));
+        }
+    }
+
+    private Response respond(String sql, List<Object> parameters) throws SQLException {
+        Optional<Rule> rule = matches.computeIfAbsent(sql, s -> rules.stream()
+                .filter(r -> r.pattern().matcher(s).find())
+                .findFirst());
+
+        if (rule.isEmpty()) {
+            throw new SQLException("Unscripted statement: " + sql, "42000");
+        }
+        return rule.get().responses().apply(parameters);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        } else if (type == double.class) {
+            return 0.0;
+        } else if (type == float.class) {
+            return 0.0f;
+        } else if (type == short.class) {
+            return (short) 0;
+        } else if (type == byte.class) {
+            return (byte) 0;
+        }
+        return null;
+    }
+
+    /**
+     * Recorded call
+     *
+     * @param method     name of the called method
+     * @param sql        SQL of the statement or null for connection calls
+     * @param parameters parameters bound to the statement
+     */
+    public record Call(String method, String sql, List<Object> parameters) {
+    }
+
+    private record Rule(Pattern pattern, Function<List<Object>, Response> responses) {
+    }
+
+    /**
+     * Scripted response of the statement
+     */
+    public static final class Response {
+
+        private List<String> columns;
+        private final List<Object[]> rows;
+        private int updateCount;
+        private final List<Object> keys;
+        private long latency;
+        private String sqlState;
+        private String message;
+        private String deferredState;
+        private String deferredMessage;
+
+        public Response() {
+            this.columns = List.of();
+            this.rows = new CopyOnWriteArrayList<>();
+            this.keys = new CopyOnWriteArrayList<>();
+        }
+
+        /**
+         * Sets column labels of the result set
+         */
+        public Response columns(String... columns) {
+            this.columns = List.of(columns);
+            return this;
+        }
+
+        /**
+         * Appends row to the result set
+         */
+        public Response row(Object... values) {
+            if (values.length != columns.size()) {
+                throw new IllegalArgumentException("Row has " + values.length + " values, but there are "
+                        + columns.size() + " columns");
+            }
+            rows.add(values.clone());
+            return this;
+        }
+
+        public Response updateCount(int updateCount) {
+            this.updateCount = updateCount;
+            return this;
+        }
+
+        /**
+         * Sets values of the generated key column
+         */
+        public Response generatedKeys(Object... keys) {
+            this.keys.addAll(Arrays.asList(keys));
+            return this;
+        }
+
+        public Response latency(Duration latency) {
+            this.latency = latency.toNanos();
+            return this;
+        }
+
+        /**
+         * Makes the execution fail with provided SQLState
+         */
+        public Response fail(String sqlState, String message) {
+            this.sqlState = sqlState;
+            this.message = message;
+            return this;
+        }
+
+        /**
+         * Makes the commit of the transaction fail with provided SQLState,
+         * like a deferred constraint does, unless the statement is rolled
+         * back to the savepoint before it
+         */
+        public Response deferred(String sqlState, String message) {
+            this.deferredState = sqlState;
+            this.deferredMessage = message;
+            return this;
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+
+        private boolean autoCommit = true;
+        private boolean readOnly;
+        private int isolation = Connection.TRANSACTION_READ_COMMITTED;
+        private boolean closed;
+        private int savepoints;
+
+        /**
+         * Failures of the commit by count of savepoints set before the statement
+         */
+        private final TreeMap<Integer, SQLException> deferred = new TreeMap<>();
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "prepareStatement":
+                case "prepareCall":
+                case "createStatement":
+                    check();
+                    String sql = args == null ? null : (String) args[0];
+                    StatementHandler handler = new StatementHandler(this, (Connection) proxy, sql);
+                    Class<? extends Statement> type = name.equals("prepareCall") ? CallableStatement.class
+                            : name.equals("prepareStatement") ? PreparedStatement.class : Statement.class;
+                    handler.self = proxy(type, handler);
+                    return handler.self;
+                case "setAutoCommit":
+                    check();
+                    autoCommit = (boolean) args[0];
+                    return null;
+                case "getAutoCommit":
+                    return autoCommit;
+                case "setReadOnly":
+                    record(name, null, List.of(args[0]));
+                    readOnly = (boolean) args[0];
+                    return null;
+                case "isReadOnly":
+                    return readOnly;
+                case "setTransactionIsolation":
+                    record(name, null, List.of(args[0]));
+                    isolation = (int) args[0];
+                    return null;
+                case "getTransactionIsolation":
+                    return isolation;
+                case "commit":
+                case "rollback":
+                case "releaseSavepoint":
+                    check();
+                    record(name, null, args == null ? List.of() : List.of(args[0].toString()));
+                    if (name.equals("rollback")) {
+                        deferred.tailMap(args == null ? 0 : ((Savepoint) args[0]).getSavepointId()).clear();
+                    } else if (name.equals("commit") && !deferred.isEmpty()) {
+                        SQLException failure = deferred.firstEntry().getValue();
+                        deferred.clear();
+                        throw failure;
+                    }
+                    return null;
+                case "setSavepoint":
+                    check();
+                    int id = ++savepoints;
+                    String savepoint = "savepoint" + id;
+                    record(name, null, List.of(savepoint));
+                    return new Savepoint() {
+                        @Override
+                        public int getSavepointId() {
+                            return id;
+                        }
+
+                        @Override
+                        public String getSavepointName() {
+                            return savepoint;
+                        }
+
+                        @Override
+                        public String toString() {
+                            return savepoint;
+                        }
+                    };
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        open.decrementAndGet();
+                        record(name, null, List.of());
+                    }
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "isValid":
+                    return !closed;
+                case "getMetaData":
+                    return proxy(DatabaseMetaData.class, (p, m, a) -> switch (m.getName()) {
+                        case "getDatabaseProductName" -> "Scripted";
+                        case "getURL" -> "jdbc:scripted:";
+                        default -> defaultValue(m.getReturnType());
+                    });
+                case "createArrayOf":
+                    Object[] elements = ((Object[]) args[1]).clone();
+                    return proxy(Array.class, (p, m, a) -> switch (m.getName()) {
+                        case "getArray" -> elements;
+                        case "getBaseTypeName" -> args[0];
+                        case "toString" -> Arrays.toString(elements);
+                        default -> defaultValue(m.getReturnType());
+                    });
+                case "unwrap":
+                    throw new SQLException("Not a wrapper");
+                case "isWrapperFor":
+                    return false;
+                case "toString":
+                    return "ScriptedConnection";
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        }
+
+        private void check() throws SQLException {
+            if (closed) {
+                throw new SQLException("Connection is closed", "08003");
+            }
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+
+        private final ConnectionHandler owner;
+        private final Connection connection;
+        private final String sql;
+        private final Map<Integer, Object> parameters;
+        private final CountDownLatch cancelled;
+        private Statement self;
+        private ResultSet resultSet;
+        private ResultSet generatedKeys;
+        private int updateCount;
+        private int fetchSize;
+
+        private StatementHandler(ConnectionHandler owner, Connection connection, String sql) {
+            this.owner = owner;
+            this.connection = connection;
+            this.sql = sql;
+            this.parameters = new TreeMap<>();
+            this.cancelled = new CountDownLatch(1);
+            this.updateCount = -1;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                parameters.put(index, name.equals("setNull") ? null : args[1]);
+                return null;
+            }
+
+            switch (name) {
+                case "executeQuery":
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                case "execute":
+                    String executed = args != null && args.length > 0 && args[0] instanceof String s ? s : sql;
+                    Response response = execute(name, executed);
+                    if (name.equals("executeQuery")) {
+                        return resultSet;
+                    } else if (name.equals("execute")) {
+                        return resultSet != null;
+                    } else if (name.equals("executeLargeUpdate")) {
+                        return (long) response.updateCount;
+                    }
+                    return response.updateCount;
+                case "getResultSet":
+                    return resultSet;
+                case "getGeneratedKeys":
+                    return generatedKeys;
+                case "getUpdateCount":
+                    return updateCount;
+                case "getMoreResults":
+                    resultSet = null;
+                    updateCount = -1;
+                    return false;
+                case "clearParameters":
+                    parameters.clear();
+                    return null;
+                case "setFetchSize":
+                    fetchSize = (int) args[0];
+                    return null;
+                case "getFetchSize":
+                    return fetchSize;
+                case "getParameterMetaData":
+                    int count = (int) sql.chars().filter(c -> c == '?').count();
+                    return proxy(ParameterMetaData.class, (p, m, a) -> m.getName().equals("getParameterCount")
+                            ? count : defaultValue(m.getReturnType()));
+                case "cancel":
+                    record(name, sql, List.of());
+                    cancelled.countDown();
+                    return null;
+                case "getConnection":
+                    return connection;
+                case "close":
+                case "isClosed":
+                    return defaultValue(method.getReturnType());
+                case "toString":
+                    return "ScriptedStatement[" + sql + "]";
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        }
+
+        private Response execute(String method, String sql) throws SQLException {
+            List<Object> bound = Collections.unmodifiableList(new ArrayList<>(parameters.values()));
+            record(method, sql, bound);
+
+            Response response = respond(sql, bound);
+            if (response.latency > 0) {
+                boolean interrupted;
+                try {
+                    interrupted = cancelled.await(response.latency, TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    interrupted = true;
+                }
+                if (interrupted) {
+                    throw new SQLException("Statement was cancelled", "57014");
+                }
+            }
+
+            if (response.sqlState != null) {
+                throw new SQLException(response.message, response.sqlState);
+            }
+            if (response.deferredState != null) {
+                SQLException failure = new SQLException(response.deferredMessage, response.deferredState);
+                if (owner.autoCommit) {
+                    throw failure;
+                }
+                owner.deferred.putIfAbsent(owner.savepoints, failure);
+            }
+
+            resultSet = response.columns.isEmpty() && response.rows.isEmpty() ? null
+                    : proxy(ResultSet.class, new RowsHandler(self, response.columns, List.copyOf(response.rows)));
+            generatedKeys = proxy(ResultSet.class, new RowsHandler(self, List.of("id"),
+                    response.keys.stream().map(key -> new Object[]{key}).toList()));
+            updateCount = resultSet == null ? response.updateCount : -1;
+            return response;
+        }
+    }
+
+    private static final class RowsHandler implements InvocationHandler {
+
+        private final Statement statement;
+        private final List<String> columns;
+        private final List<Object[]> rows;
+        private int row;
+        private boolean wasNull;
+
+        private RowsHandler(Statement statement, List<String> columns, List<Object[]> rows) {
+            this.statement = statement;
+            this.columns = columns;
+            this.rows = rows;
+            this.row = -1;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "next":
+                    if (row < rows.size()) {
+                        row++;
+                    }
+                    return row < rows.size();
+                case "getRow":
+                    return row < rows.size() ? row + 1 : 0;
+                case "wasNull":
+                    return wasNull;
+                case "getMetaData":
+                    return proxy(ResultSetMetaData.class, this::metaData);
+                case "getStatement":
+                    return statement;
+                case "findColumn":
+                    return index(args[0]);
+                case "close":
+                case "isClosed":
+                    return defaultValue(method.getReturnType());
+                default:
+                    break;
+            }
+
+            if (name.startsWith("get") && args != null && args.length >= 1) {
+                if (row < 0 || row >= rows.size()) {
+                    throw new SQLException("Result set is not positioned on a row", "24000");
+                }
+
+                Object value = rows.get(row)[index(args[0]) - 1];
+                wasNull = value == null;
+                return convert(value, args.length == 2 && args[1] instanceof Class<?> type ? type
+                        : method.getReturnType());
+            }
+            return defaultValue(method.getReturnType());
+        }
+
+        private Object metaData(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "getColumnCount":
+                    return columns.size();
+                case "getColumnLabel":
+                case "getColumnName":
+                    return columns.get((int) args[0] - 1);
+                case "getColumnType":
+                    return sqlType((int) args[0] - 1);
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        }
+
+        private int sqlType(int column) {
+            for (Object[] values : rows) {
+                Object value = values[column];
+                if (value instanceof Long) {
+                    return Types.BIGINT;
+                } else if (value instanceof Integer) {
+                    return Types.INTEGER;
+                } else if (value instanceof Double) {
+                    return Types.DOUBLE;
+                } else if (value instanceof Boolean) {
+                    return Types.BOOLEAN;
+                } else if (value instanceof Timestamp) {
+                    return Types.TIMESTAMP;
+                } else if (value instanceof String) {
+                    return Types.VARCHAR;
+                } else if (value != null) {
+                    return Types.OTHER;
+                }
+            }
+            return Types.VARCHAR;
+        }
+
+        private int index(Object column) throws SQLException {
+            if (column instanceof Integer index) {
+                if (index < 1 || index > columns.size()) {
+                    throw new SQLException("Column index " + index + " out of " + columns.size(), "22023");
+                }
+                return index;
+            }
+
+            for (int i = 0; i < columns.size(); i++) {
+                if (columns.get(i).equalsIgnoreCase((String) column)) {
+                    return i + 1;
+                }
+            }
+            throw new SQLException("There is no column " + column, "42703");
+        }
+
+        private static Object convert(Object value, Class<?> type) {
+            if (value == null) {
+                return defaultValue(type);
+            }
+
+            if (type == long.class || type == Long.class) {
+                return value instanceof Number number ? number.longValue() : Long.parseLong(value.toString());
+            } else if (type == int.class || type == Integer.class) {
+                return value instanceof Number number ? number.intValue() : Integer.parseInt(value.toString());
+            } else if (type == short.class || type == Short.class) {
+                return value instanceof Number number ? number.shortValue() : Short.parseShort(value.toString());
+            } else if (type == double.class || type == Double.class) {
+                return value instanceof Number number ? number.doubleValue() : Double.parseDouble(value.toString());
+            } else if (type == float.class || type == Float.class) {
+                return value instanceof Number number ? number.floatValue() : Float.parseFloat(value.toString());
+            } else if (type == boolean.class || type == Boolean.class) {
+                return value instanceof Boolean bool ? bool : Boolean.parseBoolean(value.toString());
+            } else if (type == BigDecimal.class) {
+                return new BigDecimal(value.toString());
+            } else if (type == String.class) {
+                return value.toString();
+            }
+            return value;
+        }
+    }
+}
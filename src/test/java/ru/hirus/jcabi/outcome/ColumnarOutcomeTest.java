@@ -0,0 +1,69 @@
+package ru.hirus.jcabi.outcome;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import ru.hirus.jcabi.lazy.Query;
+import ru.hirus.jcabi.misc.PostgresDatabaseTestTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+public class ColumnarOutcomeTest extends PostgresDatabaseTestTemplate {
+
+    @Test
+    void columnarTest() throws SQLException {
+        DataSource dataSource = factoryDataSource();
+
+        // --- Small chunks make values cross chunk boundaries
+        ColumnarOutcome outcome = new ColumnarOutcome(500, 64);
+        Query<ColumnarResult> query = Query.select()
+                .sql("""
+                        SELECT g AS id,
+                               g::float8 / 2 AS half,
+                               g % 2 = 0 AS even,
+                               CASE WHEN g % 3 = 0 THEN NULL ELSE 'имя' || g END AS name
+                        FROM generate_series(0, 9999) g
+                        ORDER BY g
+                        """)
+                .prepare(outcome.preparation())
+                .build(outcome);
+
+        ColumnarResult result = query.execute(dataSource);
+        try (result) {
+            assertEquals(10000, result.rows());
+            assertEquals(4, result.columns());
+            assertEquals(ColumnType.LONG, result.type(result.index("id")));
+            assertEquals(ColumnType.DOUBLE, result.type(result.index("half")));
+            assertEquals(ColumnType.BOOLEAN, result.type(result.index("even")));
+            assertEquals(ColumnType.STRING, result.type(result.index("name")));
+
+            ColumnarResult.Cursor cursor = result.cursor();
+            for (long i = 0; i < 10000; i++) {
+                assertTrue(cursor.next());
+                assertEquals(i, cursor.getLong(1));
+                assertEquals(i / 2.0, cursor.getDouble(2), 0);
+                assertEquals(i % 2 == 0, cursor.getBoolean(3));
+                if (i % 3 == 0) {
+                    assertTrue(cursor.isNull(4));
+                    assertNull(cursor.getString(4));
+                } else {
+                    assertFalse(cursor.isNull(4));
+                    assertEquals("имя" + i, cursor.getString(4));
+                }
+            }
+            assertFalse(cursor.next());
+
+            cursor.seek(42);
+            assertEquals(42, cursor.getLong(1));
+            assertThrows(IllegalArgumentException.class, () -> cursor.getString(1));
+        }
+
+        // --- Released result can not be read
+        assertThrows(IllegalStateException.class, result::cursor);
+    }
+}
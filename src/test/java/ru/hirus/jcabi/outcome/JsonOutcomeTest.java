@@ -0,0 +1,98 @@
+package ru.hirus.jcabi.outcome;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import ru.hirus.jcabi.lazy.Query;
+import ru.hirus.jcabi.misc.ScriptedDataSource;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+
+public class JsonOutcomeTest {
+
+    private final ScriptedDataSource dataSource = new ScriptedDataSource();
+
+    @Test
+    void jsonTest() throws SQLException {
+        dataSource.on("SELECT id").columns("id", "half", "even", "name")
+                .row(1L, 0.5, false, "имя \"1\"\n")
+                .row(Long.MIN_VALUE, Double.NaN, true, "\uD83D\uDE00\u0001\\")
+                .row(null, null, null, null);
+
+        // --- Values are written by types of columns
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        JsonOutcome outcome = new JsonOutcome(output, 100);
+        long rows = Query.select()
+                .sql("SELECT id, half, even, name FROM test")
+                .prepare(outcome.preparation())
+                .build(outcome)
+                .execute(dataSource);
+
+        assertEquals(3, rows);
+        assertEquals("["
+                        + "{\"id\":1,\"half\":0.5,\"even\":false,\"name\":\"имя \\\"1\\\"\\n\"},"
+                        + "{\"id\":-9223372036854775808,\"half\":null,\"even\":true,\"name\":\"\uD83D\uDE00\\u0001\\\\\"},"
+                        + "{\"id\":null,\"half\":null,\"even\":null,\"name\":null}"
+                        + "]",
+                output.toString(StandardCharsets.UTF_8));
+
+        // --- Empty result is an empty array
+        dataSource.on("SELECT nothing").columns("id");
+        output.reset();
+        assertEquals(0, (long) Query.select()
+                .sql("SELECT nothing FROM test")
+                .build(new JsonOutcome(output))
+                .execute(dataSource));
+        assertEquals("[]", output.toString(StandardCharsets.UTF_8));
+
+        // --- Rows without columns are empty objects
+        dataSource.on("SELECT FROM").row().row();
+        output.reset();
+        assertEquals(2, (long) Query.select()
+                .sql("SELECT FROM test")
+                .build(new JsonOutcome(output))
+                .execute(dataSource));
+        assertEquals("[{},{}]", output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void doubleTest() throws SQLException {
+        dataSource.on("SELECT value").columns("value").row(1e20).row(-1e-5).row(Double.POSITIVE_INFINITY).row(0.1);
+
+        // --- Doubles are written as JSON numbers in the shortest exact form
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Query.select()
+                .sql("SELECT value FROM test")
+                .build(new JsonOutcome(output))
+                .execute(dataSource);
+        assertEquals("[{\"value\":1.0E20},{\"value\":-1.0E-5},{\"value\":null},{\"value\":0.1}]",
+                output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void largeTest() throws SQLException {
+        ScriptedDataSource.Response response = dataSource.on("SELECT name").columns("id", "name");
+        StringBuilder expected = new StringBuilder("[");
+        for (long i = 0; i < 10_000; i++) {
+            response.row(i, "имя" + i);
+            expected.append(i == 0 ? "" : ",").append("{\"id\":").append(i).append(",\"name\":\"имя").append(i)
+                    .append("\"}");
+        }
+        expected.append(']');
+
+        // --- Rows that do not fit the buffer are written in parts
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        long rows = Query.select()
+                .sql("SELECT name FROM test")
+                .build(new JsonOutcome(Channels.newChannel(output), 0))
+                .execute(dataSource);
+
+        assertEquals(10_000, rows);
+        assertTrue(output.size() > 8192);
+        assertEquals(expected.toString(), output.toString(StandardCharsets.UTF_8));
+    }
+}
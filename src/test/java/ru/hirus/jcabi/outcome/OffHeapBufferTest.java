@@ -0,0 +1,55 @@
+package ru.hirus.jcabi.outcome;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class OffHeapBufferTest {
+
+    @Test
+    void growthTest() {
+        // --- Short content takes one small chunk
+        OffHeapBuffer small = new OffHeapBuffer(1 << 20);
+        small.putLong(42);
+        small.putByte((byte) 1);
+        assertEquals(256, small.capacity());
+
+        // --- Chunks double up to the max chunk size
+        OffHeapBuffer buffer = new OffHeapBuffer(1 << 20);
+        long count = 4 * (1 << 20) / Long.BYTES;
+        for (long i = 0; i < count; i++) {
+            buffer.putLong(i);
+        }
+        assertTrue(buffer.capacity() >= 4 << 20 && buffer.capacity() < 5 << 20, String.valueOf(buffer.capacity()));
+        for (long i = 0; i < count; i++) {
+            assertEquals(i, buffer.getLong(i * Long.BYTES));
+        }
+
+        // --- Bytes cross chunk boundaries
+        OffHeapBuffer text = new OffHeapBuffer(1024);
+        byte[] bytes = "значение".repeat(100).getBytes(StandardCharsets.UTF_8);
+        text.putByte((byte) 7);
+        text.put(bytes, bytes.length);
+        byte[] read = new byte[bytes.length];
+        text.get(1, read, read.length);
+        assertArrayEquals(bytes, read);
+        assertEquals(7, text.getByte(0));
+    }
+
+    @Test
+    void releaseTest() {
+        OffHeapBuffer buffer = new OffHeapBuffer(1 << 20);
+        buffer.putLong(1);
+        buffer.release();
+        buffer.release();
+
+        assertEquals(0, buffer.capacity());
+        assertThrows(IllegalStateException.class, () -> buffer.getLong(0));
+        assertThrows(IllegalStateException.class, () -> buffer.putLong(2));
+    }
+}
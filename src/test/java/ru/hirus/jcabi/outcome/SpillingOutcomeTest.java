@@ -0,0 +1,79 @@
+package ru.hirus.jcabi.outcome;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import ru.hirus.jcabi.lazy.Query;
+import ru.hirus.jcabi.misc.PostgresDatabaseTestTemplate;
+import ru.hirus.jcabi.misc.TestRecord;
+
+import javax.sql.DataSource;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class SpillingOutcomeTest extends PostgresDatabaseTestTemplate {
+
+    private static final RowCodec<TestRecord> CODEC = new RowCodec<>() {
+        @Override
+        public void write(TestRecord row, DataOutput output) throws IOException {
+            output.writeLong(row.id());
+            output.writeUTF(row.name());
+        }
+
+        @Override
+        public TestRecord read(DataInput input) throws IOException {
+            return new TestRecord(input.readLong(), input.readUTF());
+        }
+    };
+
+    @Test
+    void spillTest() throws Exception {
+        DataSource dataSource = factoryDataSource();
+        Path directory = Files.createTempDirectory("spill");
+
+        // --- Only first rows fit the budget
+        Query<SpilledList<TestRecord>> query = Query.select()
+                .sql("SELECT g, 'Name' || g FROM generate_series(1, 10000) g ORDER BY g")
+                .build(new SpillingOutcome<>(
+                        resultSet -> new TestRecord(resultSet.getLong(1), resultSet.getString(2)),
+                        CODEC,
+                        1024,
+                        directory
+                ));
+
+        SpilledList<TestRecord> records = query.execute(dataSource);
+        try (records) {
+            assertEquals(10000, records.size());
+            assertTrue(records.inMemory() > 0);
+            assertTrue(records.spilled() > 0);
+            assertEquals(10000, records.inMemory() + records.spilled());
+
+            for (int i = 0; i < records.size(); i++) {
+                assertEquals(new TestRecord(i + 1, "Name" + (i + 1)), records.get(i));
+            }
+
+            List<TestRecord> iterated = new ArrayList<>(records);
+            assertEquals(records, iterated);
+
+            try (Stream<Path> files = Files.list(directory)) {
+                assertEquals(1, files.count());
+            }
+        }
+
+        // --- File is deleted on close
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+        assertThrows(IllegalStateException.class, () -> records.get(records.size() - 1));
+
+        Files.delete(directory);
+    }
+}
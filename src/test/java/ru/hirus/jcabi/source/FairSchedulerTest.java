@@ -0,0 +1,126 @@
+package ru.hirus.jcabi.source;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.jcabi.jdbc.SingleOutcome;
+import org.junit.jupiter.api.Test;
+import ru.hirus.jcabi.lazy.Query;
+import ru.hirus.jcabi.misc.ScriptedDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class FairSchedulerTest {
+
+    private final ScriptedDataSource scripted = new ScriptedDataSource().recording(false);
+
+    {
+        scripted.on("FROM bulk").columns("id").row(1L).latency(Duration.ofMillis(20));
+        scripted.on("FROM interactive").columns("id").row(1L).latency(Duration.ofMillis(1));
+    }
+
+    private static Query<Long> select(String table) {
+        return Query.select()
+                .sql("SELECT id FROM " + table)
+                .build(new SingleOutcome<>(Long.class));
+    }
+
+    private static FairScheduler.Metrics metrics(FairScheduler scheduler, String name) {
+        return scheduler.metrics().stream().filter(metrics -> metrics.name().equals(name)).findFirst().orElseThrow();
+    }
+
+    /**
+     * Runs bulk queries on 8 threads while one thread runs interactive queries
+     */
+    private static void load(FairScheduler scheduler) throws Exception {
+        AtomicBoolean stopped = new AtomicBoolean();
+        List<CompletableFuture<Void>> bulk = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            bulk.add(CompletableFuture.runAsync(() -> {
+                while (!stopped.get()) {
+                    try {
+                        scheduler.execute("bulk", select("bulk"));
+                    } catch (SQLException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            }));
+        }
+
+        Thread.sleep(100);
+        for (int i = 0; i < 30; i++) {
+            assertEquals(1L, (long) scheduler.execute("interactive", select("interactive")));
+            Thread.sleep(5);
+        }
+
+        stopped.set(true);
+        for (CompletableFuture<Void> future : bulk) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void weightTest() throws Exception {
+        FairScheduler scheduler = new FairScheduler(scripted, 2, Duration.ofSeconds(5), List.of(
+                FairScheduler.Share.of("interactive", 10),
+                FairScheduler.Share.of("bulk", 1)));
+
+        // Первое выполнение медленное из-за загрузки классов
+        scheduler.execute("interactive", select("interactive"));
+
+        // --- Interactive queries jump over the queue of bulk ones
+        load(scheduler);
+
+        FairScheduler.Metrics interactive = metrics(scheduler, "interactive");
+        FairScheduler.Metrics bulk = metrics(scheduler, "bulk");
+        assertEquals(31, interactive.executions());
+        assertTrue(bulk.executions() > 20, bulk.toString());
+        assertTrue(interactive.averageQueueTime().toMillis() < 25, interactive.toString());
+        assertTrue(interactive.averageQueueTime().multipliedBy(3).compareTo(bulk.averageQueueTime()) < 0,
+                interactive + " " + bulk);
+        assertEquals(0, interactive.inFlight());
+        assertEquals(0, bulk.queued());
+    }
+
+    @Test
+    void capTest() throws Exception {
+        FairScheduler scheduler = new FairScheduler(scripted, 2, Duration.ofSeconds(5), List.of(
+                FairScheduler.Share.of("interactive", 1),
+                new FairScheduler.Share("bulk", 1, 1)));
+
+        scheduler.execute("interactive", select("interactive"));
+
+        // --- Cap of bulk queries keeps one slot for interactive ones
+        load(scheduler);
+
+        FairScheduler.Metrics interactive = metrics(scheduler, "interactive");
+        assertTrue(interactive.maxQueueTime().toMillis() < 10, interactive.toString());
+        assertTrue(metrics(scheduler, "bulk").queueTime().toMillis() > 100);
+    }
+
+    @Test
+    void rejectTest() throws SQLException {
+        FairScheduler scheduler = new FairScheduler(scripted, 1, Duration.ofMillis(50), List.of(
+                FairScheduler.Share.of("interactive", 1)));
+
+        try (Connection ignored = scheduler.dataSource("interactive").getConnection()) {
+            assertThrows(SQLTransientConnectionException.class,
+                    () -> scheduler.execute("interactive", select("interactive")));
+        }
+
+        FairScheduler.Metrics metrics = metrics(scheduler, "interactive");
+        assertEquals(1, metrics.rejected());
+        assertEquals(0, metrics.queued());
+        assertEquals(0, metrics.inFlight());
+        assertThrows(IllegalArgumentException.class, () -> scheduler.dataSource("unknown"));
+    }
+}
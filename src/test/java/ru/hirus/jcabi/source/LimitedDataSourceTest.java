@@ -0,0 +1,175 @@
+package ru.hirus.jcabi.source;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import ru.hirus.jcabi.misc.ScriptedDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class LimitedDataSourceTest {
+
+    private final ScriptedDataSource scripted = new ScriptedDataSource().recording(false);
+
+    {
+        scripted.on("SELECT pg_sleep", parameters -> new ScriptedDataSource.Response()
+                .latency(Duration.ofMillis((long) parameters.get(0))));
+    }
+
+    @Test
+    void failFastTest() throws SQLException {
+        LimitedDataSource dataSource = new LimitedDataSource(scripted,
+                new AimdLimit(2, 1, 10, 0.5, Duration.ofSeconds(1)), 0, Duration.ZERO);
+
+        List<Connection> connections = acquire(dataSource, 2);
+        assertEquals(2, dataSource.inFlight());
+
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        assertEquals(1, dataSource.rejected());
+
+        release(connections, 0);
+        assertEquals(0, dataSource.inFlight());
+    }
+
+    @Test
+    void queueTest() throws Exception {
+        LimitedDataSource dataSource = new LimitedDataSource(scripted,
+                new AimdLimit(1, 1, 1, 0.5, Duration.ofSeconds(1)), 1, Duration.ofSeconds(5));
+
+        Connection connection = dataSource.getConnection();
+
+        CompletableFuture<Connection> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return dataSource.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        while (dataSource.queued() == 0) {
+            Thread.onSpinWait();
+        }
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+        connection.close();
+        waiting.get(5, TimeUnit.SECONDS).close();
+        assertEquals(0, dataSource.inFlight());
+    }
+
+    @Test
+    void aimdTest() throws Exception {
+        LimitedDataSource dataSource = new LimitedDataSource(scripted,
+                new AimdLimit(4, 1, 100, 0.5, Duration.ofMillis(250)), 0, Duration.ZERO);
+
+        // --- Fast executions under load increase the limit
+        release(acquire(dataSource, 4), 0);
+        assertEquals(6, dataSource.limit());
+
+        // --- Slow executions decrease the limit
+        release(acquire(dataSource, 2), 500);
+        assertEquals(1, dataSource.limit());
+    }
+
+    @Test
+    void gradientTest() {
+        GradientLimit algorithm = new GradientLimit(10, 1, 100);
+        int limit = algorithm.initial();
+
+        // --- Latency without queueing lets the limit grow
+        for (int i = 0; i < 20; i++) {
+            limit = algorithm.update(limit, TimeUnit.MILLISECONDS.toNanos(5), limit);
+        }
+        int grown = limit;
+        assertTrue(grown > 10, "limit " + grown);
+
+        // --- Growing latency shrinks the limit
+        for (int i = 0; i < 20; i++) {
+            limit = algorithm.update(limit, TimeUnit.MILLISECONDS.toNanos(50), limit);
+        }
+        assertTrue(limit < grown, "limit " + limit);
+    }
+
+    @Test
+    void zeroLatencyTest() {
+        GradientLimit algorithm = new GradientLimit(10, 1, 100);
+
+        // --- Latency below the resolution of the timer does not drop the limit
+        int limit = algorithm.initial();
+        for (int i = 0; i < 5; i++) {
+            limit = algorithm.update(limit, 0, limit);
+        }
+        assertTrue(limit >= 10, "limit " + limit);
+    }
+
+    @Test
+    void connectionFailureTest() throws SQLException {
+        AtomicBoolean down = new AtomicBoolean();
+        DataSource failing = (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(),
+                new Class<?>[]{DataSource.class}, (proxy, method, args) -> {
+                    if (down.get()) {
+                        throw new SQLException("Connection refused", "08001");
+                    }
+                    return scripted.getConnection();
+                });
+        LimitedDataSource dataSource = new LimitedDataSource(failing,
+                new AimdLimit(4, 1, 100, 0.5, Duration.ofSeconds(1)), 0, Duration.ZERO);
+
+        // --- Fast failures to connect under load do not grow the limit
+        List<Connection> connections = acquire(dataSource, 3);
+        down.set(true);
+        for (int i = 0; i < 10; i++) {
+            assertThrows(SQLException.class, dataSource::getConnection);
+        }
+        assertEquals(4, dataSource.limit());
+        assertEquals(3, dataSource.inFlight());
+
+        release(connections, 0);
+        assertEquals(0, dataSource.inFlight());
+    }
+
+    @Test
+    void unwrapTest() throws SQLException {
+        LimitedDataSource dataSource = new LimitedDataSource(scripted,
+                new GradientLimit(1, 1, 1), 0, Duration.ZERO);
+
+        assertSame(scripted, dataSource.unwrap(ScriptedDataSource.class));
+    }
+
+    private static List<Connection> acquire(DataSource dataSource, int count) throws SQLException {
+        List<Connection> connections = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            connections.add(dataSource.getConnection());
+        }
+        return connections;
+    }
+
+    /**
+     * Executes the statement with provided latency and closes connections
+     */
+    private static void release(List<Connection> connections, long latency) throws SQLException {
+        if (latency > 0) {
+            try (PreparedStatement statement = connections.get(0).prepareStatement("SELECT pg_sleep(?)")) {
+                statement.setLong(1, latency);
+                statement.execute();
+            }
+        }
+
+        for (Connection connection : connections) {
+            connection.close();
+        }
+    }
+}
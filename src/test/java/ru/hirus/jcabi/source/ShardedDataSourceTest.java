@@ -0,0 +1,174 @@
+package ru.hirus.jcabi.source;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.jcabi.jdbc.ListOutcome;
+import com.jcabi.jdbc.Outcome;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.hirus.jcabi.lazy.Query;
+import ru.hirus.jcabi.lazy.ScatterGather;
+import ru.hirus.jcabi.misc.ScriptedDataSource;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+public class ShardedDataSourceTest {
+
+    private static final AtomicInteger DATABASES = new AtomicInteger();
+
+    private static final Query<List<Long>> SELECT_IDS = Query.select()
+            .sql("SELECT id FROM test ORDER BY id")
+            .build(new ListOutcome<>(resultSet -> resultSet.getLong(1)));
+
+    private final ShardedDataSource<Long> dataSource = new ShardedDataSource<>(
+            IntStream.range(0, 3).mapToObj(i -> database()).toList(),
+            Sharding.hash()
+    );
+
+    @AfterEach
+    void close() {
+        dataSource.close();
+    }
+
+    private static DataSource database() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:shard" + DATABASES.incrementAndGet() + ";DB_CLOSE_DELAY=-1");
+        return dataSource;
+    }
+
+    private static Query<Void> insert(long id) {
+        return Query.update()
+                .sql("INSERT INTO test (id, name) VALUES (?, ?)")
+                .setLong(id)
+                .setString("Name" + id)
+                .build(Outcome.VOID);
+    }
+
+    private void createTable() throws SQLException {
+        ScatterGather.all(dataSource, Query.execute()
+                .sql("CREATE TABLE test (id BIGINT PRIMARY KEY, name VARCHAR(128))")
+                .build());
+    }
+
+    @Test
+    void routingTest() throws SQLException {
+        createTable();
+
+        // --- Every row is written to the shard of its key
+        for (long id = 1; id <= 10; id++) {
+            insert(id).onShard(id).execute(dataSource);
+        }
+
+        List<List<Long>> shards = ScatterGather.all(dataSource, SELECT_IDS);
+        assertEquals(3, shards.size());
+        for (int shard = 0; shard < shards.size(); shard++) {
+            for (long id : shards.get(shard)) {
+                assertEquals(shard, Sharding.<Long>hash().shard(id, 3));
+            }
+        }
+
+        // --- Transaction is executed on one shard
+        String name = insert(11).then(Query.select()
+                        .sql("SELECT name FROM test WHERE id = ?")
+                        .setLong(11)
+                        .build(new ListOutcome<>(resultSet -> resultSet.getString(1))))
+                .map(names -> names.get(0))
+                .onShard(11L)
+                .execute(dataSource);
+        assertEquals("Name11", name);
+    }
+
+    @Test
+    void scatterGatherTest() throws SQLException {
+        createTable();
+        for (long id = 1; id <= 20; id++) {
+            insert(id).onShard(id).execute(dataSource);
+        }
+
+        // --- Sorted results of shards are merged keeping the order
+        List<Long> ids = ScatterGather.sorted(dataSource, SELECT_IDS, Comparator.naturalOrder());
+        assertEquals(LongStream.rangeClosed(1, 20).boxed().toList(), ids);
+
+        // --- Custom merge
+        int count = ScatterGather.execute(dataSource, SELECT_IDS,
+                lists -> lists.stream().mapToInt(List::size).sum());
+        assertEquals(20, count);
+    }
+
+    @Test
+    void failureTest() {
+        // --- Failures of other shards are suppressed by the first one
+        SQLException exception = assertThrows(SQLException.class, () -> ScatterGather.all(dataSource, SELECT_IDS));
+        assertEquals(2, Arrays.stream(exception.getSuppressed()).filter(SQLException.class::isInstance).count());
+    }
+
+    @Test
+    void mergeTest() {
+        assertEquals(List.of(1, 2, 2, 3, 4, 5, 6), ScatterGather.merge(
+                List.of(List.of(2, 5), List.<Integer>of(), List.of(1, 2, 3, 6), List.of(4)),
+                Comparator.naturalOrder()
+        ));
+    }
+
+    @Test
+    void rejectedTest() throws SQLException {
+        ScriptedDataSource first = new ScriptedDataSource();
+        first.on("SELECT id").columns("id").row(1L);
+        List<Runnable> queued = new ArrayList<>();
+        Executor executor = command -> {
+            if (!queued.isEmpty()) {
+                throw new RejectedExecutionException("full");
+            }
+            queued.add(command);
+        };
+
+        // --- Rejected query fails with SQLException
+        ShardedDataSource<Long> rejecting = new ShardedDataSource<>(
+                List.of(first, new ScriptedDataSource()), Sharding.hash(), executor);
+        SQLException exception = assertThrows(SQLException.class, () -> ScatterGather.all(rejecting, SELECT_IDS));
+        assertEquals(RejectedExecutionException.class, exception.getCause().getClass());
+
+        // --- The query already submitted to the executor is cancelled
+        queued.get(0).run();
+        assertEquals(List.of(), first.calls("executeQuery"));
+
+        // --- Closed data source rejects queries the same way
+        ShardedDataSource<Long> closed = new ShardedDataSource<>(List.of(new ScriptedDataSource()), Sharding.hash());
+        closed.close();
+        assertThrows(SQLException.class, () -> ScatterGather.all(closed, SELECT_IDS));
+    }
+
+    @Test
+    void closeTest() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            new ShardedDataSource<Long>(List.of(new ScriptedDataSource()), Sharding.hash(), executor).close();
+
+            // --- Executor of the caller is left running
+            assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdown();
+        }
+
+        // --- Own pool is stopped
+        ShardedDataSource<Long> owned = new ShardedDataSource<>(List.of(new ScriptedDataSource()), Sharding.hash());
+        owned.close();
+        assertThrows(RejectedExecutionException.class, () -> owned.executor().execute(() -> {
+        }));
+    }
+}
@@ -0,0 +1,62 @@
+package ru.hirus.jcabi.sql;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.jcabi.jdbc.ListOutcome;
+import org.junit.jupiter.api.Test;
+import ru.hirus.jcabi.lazy.Query;
+import ru.hirus.jcabi.misc.ScriptedDataSource;
+
+import java.sql.Array;
+import java.sql.SQLException;
+import java.util.List;
+
+public class SqlTest {
+
+    private static Sql search(String name, List<Long> ids, Integer limit) {
+        return Sql.of("SELECT id FROM parent")
+                .whereNotNull("name = ?", name)
+                .whereAny("id", "bigint", ids)
+                .whereIf(limit != null, "id > ? OR id < ?", 0L, 100L)
+                .append("ORDER BY id");
+    }
+
+    @Test
+    void sqlTest() {
+        // --- SQL depends on present filters, not on values
+        Sql first = search("Name", List.of(1L, 2L), null);
+        Sql second = search("Other", List.of(3L, 4L, 5L, 6L), null);
+        assertEquals("SELECT id FROM parent WHERE (name = ?) AND (id = ANY(?)) ORDER BY id", first.sql());
+        assertSame(first.sql(), second.sql());
+        assertEquals(2, second.arguments().size());
+        assertEquals("Other", second.arguments().get(0));
+        int statements = Sql.statements();
+        search("Third", List.of(7L), null).sql();
+        assertEquals(statements, Sql.statements());
+
+        // --- Absent filters are skipped
+        assertEquals("SELECT id FROM parent WHERE (id > ? OR id < ?) ORDER BY id", search(null, null, 1).sql());
+        assertEquals("SELECT id FROM parent ORDER BY id", search(null, null, null).sql());
+        assertEquals(List.of(), search(null, null, null).arguments());
+    }
+
+    @Test
+    void queryTest() throws SQLException {
+        ScriptedDataSource dataSource = new ScriptedDataSource();
+        dataSource.on("SELECT id FROM parent").columns("id").row(2L);
+
+        // --- Values of the list are bound as one array
+        List<Long> ids = search("Name", List.of(1L, 2L, 3L), null)
+                .to(Query.select())
+                .build(new ListOutcome<>(resultSet -> resultSet.getLong(1)))
+                .execute(dataSource);
+        assertEquals(List.of(2L), ids);
+
+        List<Object> parameters = dataSource.calls("executeQuery").get(0).parameters();
+        assertEquals(2, parameters.size());
+        assertEquals("Name", parameters.get(0));
+        assertArrayEquals(new Object[]{1L, 2L, 3L}, (Object[]) ((Array) parameters.get(1)).getArray());
+    }
+}